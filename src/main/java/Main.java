@@ -1,10 +1,11 @@
 import cyclonedx.sbom.Bom16;
 import data.Component;
-import data.readData.ReadVexComponent;
+import enums.MavenComponentRepositoryType;
 import logger.LogLevel;
 import logger.Logger;
 import org.spdx.library.model.SpdxDocument;
 import repository.LicenseRepository;
+import repository.VulnerabilityRepository;
 import repository.repositoryImpl.LicenseCollisionRepositoryImpl;
 import service.DocumentBuilder;
 import service.serviceImpl.BFDependencyCrawlerImpl;
@@ -25,6 +26,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Objects;
@@ -59,7 +61,7 @@ public class Main {
                     argMap.put(lastKey, argMap.get(lastKey) + ";" + arg);
             }
         }
-        var legalArgs = List.of("input", "output", "input-type", "output-type", "help", "log-level", "no-log", "crawl-optional","crawl-all","crawl-threads", "data-folder");
+        var legalArgs = List.of("input", "output", "input-type", "output-type", "help", "log-level", "no-log", "crawl-optional","crawl-all","crawl-threads", "enrich-threads", "crawl-executor", "max-connections", "repository-limits", "metadata-ttl", "not-found-ttl", "connect-timeout", "request-timeout", "osv-url", "osv-batch-size", "osv-threads", "osv-offline", "vulnerability-ttl", "refresh-vulnerabilities", "data-folder");
         var illegalArgs = argMap.keySet().stream().filter(s -> !legalArgs.contains(s)).toList();
         if (!illegalArgs.isEmpty()) {
             logger.error("Illegal Arguments: " + illegalArgs);
@@ -97,6 +99,77 @@ public class Main {
             Settings.crawlThreads = Integer.parseInt(argMap.get("crawl-threads"));
         }
 
+        if (argMap.containsKey("enrich-threads")) {
+            Settings.crawlEnrichThreads = Integer.parseInt(argMap.get("enrich-threads"));
+        }
+
+        if (argMap.containsKey("crawl-executor")) {
+            switch (argMap.get("crawl-executor")) {
+                case "virtual" -> Settings.crawlVirtualThreads = true;
+                case "platform" -> Settings.crawlVirtualThreads = false;
+                default -> {
+                    logger.error("Illegal crawl executor: " + argMap.get("crawl-executor") + ". Allowed values are: platform, virtual");
+                    return;
+                }
+            }
+        }
+
+        if (argMap.containsKey("max-connections")) {
+            Settings.maxConnections = Integer.parseInt(argMap.get("max-connections"));
+        }
+
+        if (argMap.containsKey("repository-limits")) {
+            for (var limit : argMap.get("repository-limits").split(";")) {
+                var parts = limit.split("=");
+                if (parts.length != 2 || Arrays.stream(MavenComponentRepositoryType.values()).noneMatch(it -> it.getName().equals(parts[0]))) {
+                    logger.error("Illegal repository limit: " + limit + ". Expected <repository>=<connections> with one of " + Arrays.toString(MavenComponentRepositoryType.values()));
+                    return;
+                }
+                Settings.repositoryConnectionLimits.put(parts[0], Integer.parseInt(parts[1]));
+            }
+        }
+
+        if (argMap.containsKey("metadata-ttl")) {
+            Settings.metadataCacheTtl = Long.parseLong(argMap.get("metadata-ttl"));
+        }
+
+        if (argMap.containsKey("not-found-ttl")) {
+            Settings.notFoundCacheTtl = Long.parseLong(argMap.get("not-found-ttl"));
+        }
+
+        if (argMap.containsKey("connect-timeout")) {
+            Settings.connectTimeout = Long.parseLong(argMap.get("connect-timeout"));
+        }
+
+        if (argMap.containsKey("request-timeout")) {
+            Settings.requestTimeout = Long.parseLong(argMap.get("request-timeout"));
+        }
+
+        if (argMap.containsKey("osv-url")) {
+            Settings.osvUrl = argMap.get("osv-url");
+        }
+
+        if (argMap.containsKey("osv-batch-size")) {
+            Settings.vulnerabilityBatchSize = Integer.parseInt(argMap.get("osv-batch-size"));
+        }
+
+        if (argMap.containsKey("osv-threads")) {
+            Settings.vulnerabilityThreads = Integer.parseInt(argMap.get("osv-threads"));
+        }
+
+        if (argMap.containsKey("osv-offline")) {
+            Settings.osvOffline = true;
+            if (!argMap.get("osv-offline").isEmpty()) Settings.osvExport = argMap.get("osv-offline");
+        }
+
+        if (argMap.containsKey("vulnerability-ttl")) {
+            Settings.vulnerabilityCacheTtl = Long.parseLong(argMap.get("vulnerability-ttl"));
+        }
+
+        if (argMap.containsKey("refresh-vulnerabilities")) {
+            Settings.refreshVulnerabilities = true;
+        }
+
         if (argMap.containsKey("data-folder")) {
             if (!Settings.setDataFolder(new File(argMap.get("data-folder")))) {
                 logger.error("Could not create data folder.");
@@ -239,8 +312,11 @@ public class Main {
     private static void readFromVex(String inputFile, String outputFile) {
         try {
             var res = new VexReader().readDocument(inputFile);
-            res.forEach(ReadVexComponent::loadComponent);
-            new VexBuilder().rebuildDocument(res.stream().map(Component::getAllVulnerabilities).flatMap(Collection::stream).toList(), outputFile);
+            // vulnerabilities modified after their updated timestamp in the file are loaded again, unless all vulnerabilities should be refreshed
+            VulnerabilityRepository.getInstance().refreshVulnerabilities(res, Settings.refreshVulnerabilities);
+            // the vulnerabilities keep their order in the file, new vulnerabilities are added at the end
+            var vulnerabilities = res.stream().map(Component::getAllVulnerabilities).flatMap(Collection::stream).sorted(Comparator.comparingInt(VexReader::getDocumentPosition)).toList();
+            new VexBuilder().rebuildDocument(vulnerabilities, outputFile);
         } catch (Exception e) {
             logger.error("Error reading VEX file: ", e);
         }
@@ -270,7 +346,7 @@ public class Main {
                 The default input file format is specified in the ReadMe.md of the GitRepository.
 
                 If an input-type is specified, the input file is read in the specified format and then updated.
-                If the input-type is vex, the only possible output type is vex.
+                If the input-type is vex, the only possible output type is vex. Only vulnerabilities modified since they were written to the file are loaded again.
 
                 Usage:
                 --input <file> :                                    input file in JSON format
@@ -282,7 +358,24 @@ public class Main {
                 --log-level :                           [INFO]      what level of logs should be shown. Supported types: ERROR, SUCCESS, INFO.
                 --crawl-optional :                      [false]     crawl dependencies flagged as optional (maven).
                 --crawl-all :                           [false]     crawl all dependencies, regardless of scope and optional (maven).
-                --crawl-threads :                       [20]        number of threads for crawling.
+                --crawl-threads :                       [20]        number of threads for downloading while crawling.
+                --enrich-threads :                      [10]        number of threads for resolving licenses and vulnerabilities while crawling.
+                --crawl-executor <type> :               [platform]  executor for crawling. Supported types: platform, virtual.
+                                                                    virtual runs every dependency load on its own virtual thread (java 21+).
+                --max-connections :                     [64]        maximum number of open connections.
+                --repository-limits <repo>=<n> ... :    [default]   maximum number of open connections per maven repository, e.g. Central=32 Google=8.
+                                                                    the actual limit adapts to the latency and errors of the repository.
+                --metadata-ttl <minutes> :              [1440]      how long cached maven-metadata.xml files are used before they are revalidated.
+                --not-found-ttl <minutes> :             [10080]     how long a maven repository is skipped for an artifact it did not have.
+                --connect-timeout <seconds> :           [10]        timeout for opening a connection.
+                --request-timeout <seconds> :           [60]        timeout for a single request, until the response is received.
+                --osv-url <url> :                       [osv.dev]   the OSV api used for vulnerabilities, e.g. a local stand-in server.
+                --osv-batch-size <count> :              [1000]      the number of components queried in one OSV batch request.
+                --osv-threads <count> :                 [16]        the number of parallel requests used to load vulnerability details.
+                --osv-offline [all.zip] :               [false]     look up vulnerabilities in the local OSV database in the data folder instead of the OSV api.
+                                                                    if an OSV ecosystem export is given, it is imported first. only changed advisories are imported again.
+                --vulnerability-ttl <minutes> :         [1440]      how long the cached vulnerabilities of a component are used before OSV is queried again.
+                --refresh-vulnerabilities :             [false]     ignore the cached vulnerabilities and query all components again. replaces all vulnerabilities of a read vex file.
                 --data-folder :                         [crntDir]   changed the location of the data folder.
 
                 --help :                                print this help message
@@ -5,6 +5,7 @@ import settings.Settings;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashSet;
@@ -141,7 +142,7 @@ public interface Component {
 
     List<Hash> getAllHashes();
 
-    List<Vulnerability> getAllVulnerabilities();
+    Collection<Vulnerability> getAllVulnerabilities();
 
     String getDownloadLocation();
 
@@ -209,5 +210,17 @@ public interface Component {
     void removeVulnerability(Vulnerability vulnerability);
 
     void addVulnerability(Vulnerability vulnerability);
+
+    /**
+     * Replaces a vulnerability with a newer version of it.
+     * Components that keep their vulnerabilities in a {@link VulnerabilitySet} keep the position of the vulnerability.
+     *
+     * @param vulnerability the vulnerability to replace
+     * @param replacement   the vulnerability with the same id that replaces it
+     */
+    default void replaceVulnerability(Vulnerability vulnerability, Vulnerability replacement) {
+        removeVulnerability(vulnerability);
+        addVulnerability(replacement);
+    }
 }
 
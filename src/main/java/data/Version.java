@@ -1,5 +1,6 @@
 package data;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Objects;
 
@@ -11,7 +12,110 @@ public interface Version extends Comparable<Version> {
         return new VersionRecord(version);
     }
 
-    record VersionRecord(String version) implements Version {
+    /**
+     * A version that is split into its parts once, when it is created.
+     * <p>
+     * The parts are separated by '.' or '-'. Versions are compared part by part, as long as both parts are numeric.
+     * The comparison stops at the first part that is not numeric, so only the leading numeric parts and the number of parts are kept.
+     * Numeric parts that do not fit into a long are treated as {@link Long#MAX_VALUE}.
+     */
+    final class VersionRecord implements Version {
+        private static final long[] noNumbers = new long[0];
+
+        private final String version;
+        // the leading numeric parts
+        private final long[] numbers;
+        private final int partCount;
+
+        VersionRecord(String version) {
+            this.version = version;
+            if (version == null) {
+                this.numbers = noNumbers;
+                this.partCount = 0;
+                return;
+            }
+
+            var numbers = new long[countDelimiters(version) + 1];
+            var numericPrefix = 0;
+            var numeric = true;
+            var parts = 0;
+            var partsUntilLastNonEmpty = 0;
+            var start = 0;
+            for (int i = 0; i <= version.length(); i++) {
+                if (i < version.length() && !isDelimiter(version.charAt(i))) continue;
+
+                parts++;
+                if (i > start) partsUntilLastNonEmpty = parts;
+                if (numeric && isNumeric(version, start, i)) {
+                    numbers[numericPrefix++] = parseNumber(version, start, i);
+                } else {
+                    numeric = false;
+                }
+                start = i + 1;
+            }
+
+            this.numbers = numericPrefix == 0 ? noNumbers : Arrays.copyOf(numbers, numericPrefix);
+            // same as String.split: trailing empty parts are removed, unless there is no delimiter at all
+            this.partCount = parts == 1 ? 1 : partsUntilLastNonEmpty;
+        }
+
+        private static int countDelimiters(String version) {
+            var count = 0;
+            for (int i = 0; i < version.length(); i++) {
+                if (isDelimiter(version.charAt(i))) count++;
+            }
+            return count;
+        }
+
+        private static boolean isDelimiter(char c) {
+            return c == '.' || c == '-';
+        }
+
+        private static boolean isNumeric(String version, int start, int end) {
+            if (start == end) return false;
+            for (int i = start; i < end; i++) {
+                var c = version.charAt(i);
+                if (c < '0' || c > '9') return false;
+            }
+            return true;
+        }
+
+        private static long parseNumber(String version, int start, int end) {
+            long value = 0;
+            for (int i = start; i < end; i++) {
+                var digit = version.charAt(i) - '0';
+                if (value > (Long.MAX_VALUE - digit) / 10) return Long.MAX_VALUE;
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        @Override
+        public String version() {
+            return version;
+        }
+
+        /**
+         * @return the number of leading numeric parts
+         */
+        public int numericPartCount() {
+            return numbers.length;
+        }
+
+        /**
+         * @return the leading numeric part at the index, see {@link #numericPartCount()}
+         */
+        public long numericPart(int index) {
+            return numbers[index];
+        }
+
+        /**
+         * @return true if the version has a part that is not numeric (e.g. 1.0-beta or 1.0.0.Final). The comparison stops at that part.
+         */
+        public boolean isQualified() {
+            return numbers.length < partCount;
+        }
+
         @Override
         public int compareTo(Version otherVersion) {
             return VersionComparator.INSTANCE.compare(this, otherVersion);
@@ -30,23 +134,26 @@ public interface Version extends Comparable<Version> {
             return Objects.hashCode(version);
         }
 
+        @Override
+        public String toString() {
+            // same as the record this class used to be, the string is part of some qualified names
+            return "VersionRecord[version=" + version + "]";
+        }
+
         public static class VersionComparator implements Comparator<Version> {
             public static final VersionComparator INSTANCE = new VersionComparator();
 
             @Override
             public int compare(Version v1, Version v2) {
-                String[] parts1 = splitVersion(v1.version());
-                String[] parts2 = splitVersion(v2.version());
+                var p1 = parsed(v1);
+                var p2 = parsed(v2);
 
-                int length = Math.min(parts1.length, parts2.length);
+                int length = Math.min(p1.partCount, p2.partCount);
 
                 for (int i = 0; i < length; i++) {
-                    if (isNumeric(parts1[i]) && isNumeric(parts2[i])) {
-                        int part1 = Integer.parseInt(parts1[i]);
-                        int part2 = Integer.parseInt(parts2[i]);
-
-                        if (part1 != part2) {
-                            return Integer.compare(part1, part2);
+                    if (i < p1.numbers.length && i < p2.numbers.length) {
+                        if (p1.numbers[i] != p2.numbers[i]) {
+                            return Long.compare(p1.numbers[i], p2.numbers[i]);
                         }
                     } else {
                         // Stop comparison when reaching the first non-numeric part
@@ -54,17 +161,36 @@ public interface Version extends Comparable<Version> {
                     }
                 }
 
-                return Integer.compare(parts1.length, parts2.length);
+                return Integer.compare(p1.partCount, p2.partCount);
             }
 
-            private String[] splitVersion(String version) {
-                return version.split("[-.]");
+            private static VersionRecord parsed(Version version) {
+                if (version instanceof VersionRecord versionRecord) return versionRecord;
+                return new VersionRecord(version.version());
             }
+        }
 
-            private boolean isNumeric(String str) {
-                return str.matches("\\d+");
-            }
+        /**
+         * A total order of versions, for sorting and binary searches. {@link VersionComparator} is not transitive: 1.0-beta compares equal to 1.0.0 and 1.0.1, which are not equal.
+         * <p>
+         * Compares the leading numeric parts (a prefix is smaller), then the number of parts. If {@link VersionComparator} does not return 0, this order agrees with it.
+         * Versions with the same numeric parts and number of parts are equal, {@link VersionComparator} cannot tell them apart either.
+         */
+        public static class TotalOrder implements Comparator<Version> {
+            public static final TotalOrder INSTANCE = new TotalOrder();
 
+            @Override
+            public int compare(Version v1, Version v2) {
+                var p1 = VersionComparator.parsed(v1);
+                var p2 = VersionComparator.parsed(v2);
+
+                int length = Math.min(p1.numbers.length, p2.numbers.length);
+                for (int i = 0; i < length; i++) {
+                    if (p1.numbers[i] != p2.numbers[i]) return Long.compare(p1.numbers[i], p2.numbers[i]);
+                }
+                if (p1.numbers.length != p2.numbers.length) return Integer.compare(p1.numbers.length, p2.numbers.length);
+                return Integer.compare(p1.partCount, p2.partCount);
+            }
         }
     }
-}
\ No newline at end of file
+}
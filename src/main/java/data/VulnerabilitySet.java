@@ -0,0 +1,87 @@
+package data;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The vulnerabilities of a component, indexed by their id. Iterates in insertion order.
+ * <p>
+ * Two vulnerabilities with the same id are the same vulnerability: adding a vulnerability whose id is already contained does nothing,
+ * and contains / remove / lookups by id take constant time.
+ */
+public class VulnerabilitySet extends AbstractSet<Vulnerability> {
+    private final Map<String, Vulnerability> vulnerabilities = new LinkedHashMap<>();
+
+    public VulnerabilitySet() {
+    }
+
+    public VulnerabilitySet(Collection<? extends Vulnerability> vulnerabilities) {
+        if (vulnerabilities != null) addAll(vulnerabilities);
+    }
+
+    @Override
+    public boolean add(Vulnerability vulnerability) {
+        return vulnerabilities.putIfAbsent(vulnerability.getId(), vulnerability) == null;
+    }
+
+    /**
+     * Adds the vulnerability, replacing the vulnerability with the same id.
+     *
+     * @return the replaced vulnerability or null
+     */
+    public Vulnerability put(Vulnerability vulnerability) {
+        return vulnerabilities.put(vulnerability.getId(), vulnerability);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Vulnerability vulnerability && vulnerabilities.remove(vulnerability.getId()) != null;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Vulnerability vulnerability && vulnerabilities.containsKey(vulnerability.getId());
+    }
+
+    public boolean containsId(String id) {
+        return vulnerabilities.containsKey(id);
+    }
+
+    /**
+     * @return the vulnerability with the id or null
+     */
+    public Vulnerability get(String id) {
+        return vulnerabilities.get(id);
+    }
+
+    /**
+     * @return the vulnerabilities of this set whose ids are not in the other set
+     */
+    public List<Vulnerability> notIn(VulnerabilitySet other) {
+        var result = new ArrayList<Vulnerability>();
+        for (var vulnerability : vulnerabilities.values()) {
+            if (!other.containsId(vulnerability.getId())) result.add(vulnerability);
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<Vulnerability> iterator() {
+        return vulnerabilities.values().iterator();
+    }
+
+    @Override
+    public int size() {
+        return vulnerabilities.size();
+    }
+
+    @Override
+    public void clear() {
+        vulnerabilities.clear();
+    }
+}
@@ -10,6 +10,7 @@ import data.Person;
 import data.Property;
 import data.Version;
 import data.Vulnerability;
+import data.VulnerabilitySet;
 import logger.Logger;
 import org.apache.maven.api.model.DependencyManagement;
 import org.apache.maven.api.model.Model;
@@ -21,6 +22,7 @@ import repository.repositoryImpl.MavenComponentRepository;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * An artifact in a Maven repository.
@@ -36,9 +38,14 @@ public class MavenComponent implements Component {
     Model model;
     Component parent;
     List<Hash> hashes = new ArrayList<>();
-    boolean loaded = false;
+    volatile boolean loaded = false;
+    private volatile boolean enriched = false;
+    private boolean fetchFailed = false;
+    private long loadStart;
     boolean isRoot = false;
-    private List<Vulnerability> vulnerabilities;
+    // a lock instead of a synchronized method, so virtual threads waiting for the network are not pinned to their carrier
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile VulnerabilitySet vulnerabilities;
     private List<LicenseChoice> licenseChoices = new ArrayList<>();
 
     public MavenComponent(String groupId, String artifactId, Version version) {
@@ -124,69 +131,112 @@ public class MavenComponent implements Component {
 
 
     @Override
-    public synchronized void loadComponent() {
-        if (loaded) return;
+    public void loadComponent() {
+        loadLock.lock();
+        try {
+            if (!fetch()) return;
+            parse();
+            enrich();
+        } finally {
+            loadLock.unlock();
+        }
+    }
 
-        if (this.isRoot) {
-            this.loaded = true;
-            return;
+    /**
+     * First stage of loading this component: loads the model from the repository (or the cache).
+     *
+     * @return true if the model is available
+     */
+    public boolean fetch() {
+        loadLock.lock();
+        try {
+            if (this.isRoot || this.model != null) return true;
+            if (this.fetchFailed) return false;
+
+            this.loadStart = System.currentTimeMillis();
+            var loadingState = MavenComponentRepository.getInstance().loadComponent(this);
+            this.fetchFailed = loadingState != 0 || this.model == null;
+            return !this.fetchFailed;
+        } finally {
+            loadLock.unlock();
         }
+    }
 
-        var start = System.currentTimeMillis();
+    /**
+     * Second stage of loading this component: reads the dependencies, the parent and the properties from the model.
+     * Does not need the network. After this stage the component counts as loaded.
+     */
+    public void parse() {
+        loadLock.lock();
+        try {
+            if (loaded) return;
 
-        var loadingState = MavenComponentRepository.getInstance().loadComponent(this);
-        if (loadingState != 0) return;
+            if (this.isRoot) {
+                this.loaded = true;
+                return;
+            }
 
+            if (this.model == null) return;
 
-        // DEPENDENCIES
-        for (var modelDependency : model.getDependencies()) {
-            this.dependencies.add(mavenDependency(modelDependency));
-        }
+            // DEPENDENCIES
+            for (var modelDependency : model.getDependencies()) {
+                this.dependencies.add(mavenDependency(modelDependency));
+            }
 
-        // PARENT
-        if (this.model.getParent() != null) {
-            this.parent = this.repository.getComponent(this.model.getParent().getGroupId(), this.model.getParent().getArtifactId(), Version.of(this.model.getParent().getVersion()), null);
-        } else {
-            this.parent = null;
-        }
+            // PARENT
+            if (this.model.getParent() != null) {
+                this.parent = this.repository.getComponent(this.model.getParent().getGroupId(), this.model.getParent().getArtifactId(), Version.of(this.model.getParent().getVersion()), null);
+            } else {
+                this.parent = null;
+            }
 
-        // LICENSES
-        var licenseRepository = LicenseRepository.getInstance();
-        if (this.model.getLicenses() != null && !this.model.getLicenses().isEmpty()) {
-            //load from this component
-            this.licenseChoices = new ArrayList<>();
-            for (var license : this.model.getLicenses()) {
-                if (license.getName() == null) continue;
-                var newLicense = licenseRepository.getLicenseChoice(license.getName(), license.getUrl(), this.getQualifiedName());
-                if (newLicense == null) {
-                    logger.error("Could not resolve license for " + this.getQualifiedName() + ": " + license.getName());
-                    continue;
-                }
-                this.licenseChoices.add(newLicense);
+            //PROPERTIES
+            for (var entry : this.model.getProperties().entrySet()) {
+                this.properties.add(Property.of(entry.getKey(), entry.getValue()));
             }
-        } else {
-            //load from maven parent
-            if (this.parent == null) {
 
-            } else if (!this.parent.isLoaded()) {
+            loaded = true;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Last stage of loading this component: resolves the licenses.
+     * The vulnerabilities are resolved on first access, usually after the crawl in one batch for all components (see {@link VulnerabilityRepository#loadVulnerabilities}).
+     * Does nothing if the component is not loaded.
+     */
+    public void enrich() {
+        loadLock.lock();
+        try {
+            if (!loaded || enriched || this.isRoot) return;
+
+            // LICENSES
+            var licenseRepository = LicenseRepository.getInstance();
+            if (this.model.getLicenses() != null && !this.model.getLicenses().isEmpty()) {
+                //load from this component
+                this.licenseChoices = new ArrayList<>();
+                for (var license : this.model.getLicenses()) {
+                    if (license.getName() == null) continue;
+                    var newLicense = licenseRepository.getLicenseChoice(license.getName(), license.getUrl(), this.getQualifiedName());
+                    if (newLicense == null) {
+                        logger.error("Could not resolve license for " + this.getQualifiedName() + ": " + license.getName());
+                        continue;
+                    }
+                    this.licenseChoices.add(newLicense);
+                }
+            } else if (this.parent != null) {
+                //load from maven parent. the parent may be loaded by another stage already, but still be missing its licenses.
                 this.parent.loadComponent();
                 if (this.parent.isLoaded() && this.parent.getAllLicenses() != null)
                     this.licenseChoices = new ArrayList<>(this.parent.getAllLicenses());
             }
-        }
 
-        //PROPERTIES
-        for (var entry : this.model.getProperties().entrySet()) {
-            this.properties.add(Property.of(entry.getKey(), entry.getValue()));
+            enriched = true;
+            logger.success("Parsed component: " + this.getQualifiedName() + " (" + (System.currentTimeMillis() - loadStart) + "ms)");
+        } finally {
+            loadLock.unlock();
         }
-
-        //VULNERABILITIES
-        this.vulnerabilities = VulnerabilityRepository.getInstance().getVulnerabilities(this);
-
-
-        loaded = true;
-        logger.success("Parsed component: " + this.getQualifiedName() + " (" + (System.currentTimeMillis() - start) + "ms)");
-
     }
 
     private MavenDependency mavenDependency(org.apache.maven.api.model.Dependency modelDependency) {
@@ -218,6 +268,13 @@ public class MavenComponent implements Component {
         return this.getQualifiedName();
     }
 
+    /**
+     * @return the model of this component or null if it is not loaded
+     */
+    public Model getModel() {
+        return this.model;
+    }
+
     public DependencyManagement getDependencyManagement() {
         if (this.model == null) {
             this.repository.loadComponent(this);
@@ -262,8 +319,11 @@ public class MavenComponent implements Component {
     }
 
     @Override
-    public List<Vulnerability> getAllVulnerabilities() {
-        return Objects.requireNonNullElseGet(this.vulnerabilities, ArrayList::new);
+    public VulnerabilitySet getAllVulnerabilities() {
+        if (this.vulnerabilities == null && this.loaded && !this.isRoot) {
+            this.vulnerabilities = new VulnerabilitySet(VulnerabilityRepository.getInstance().getVulnerabilities(this));
+        }
+        return Objects.requireNonNullElseGet(this.vulnerabilities, VulnerabilitySet::new);
     }
 
     @Override
@@ -340,7 +400,7 @@ public class MavenComponent implements Component {
     }
 
     private void setVulnerabilities(List<Vulnerability> vulnerabilities) {
-        this.vulnerabilities = vulnerabilities;
+        this.vulnerabilities = new VulnerabilitySet(vulnerabilities);
     }
 
     @Override
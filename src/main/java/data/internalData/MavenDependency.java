@@ -8,6 +8,7 @@ import logger.Logger;
 import repository.repositoryImpl.MavenComponentRepository;
 
 import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class MavenDependency implements Dependency {
     private static final Logger logger = Logger.of("MavenDependency");
@@ -20,6 +21,7 @@ public class MavenDependency implements Dependency {
     private Version version;
     private final String scope;
     private final Boolean optional;
+    private final ReentrantLock componentLock = new ReentrantLock();
 
     /**
      * Constructor for a Maven Dependency with a resolved version.
@@ -84,7 +86,16 @@ public class MavenDependency implements Dependency {
     }
 
     @Override
-    public synchronized Component getComponent() {
+    public Component getComponent() {
+        componentLock.lock();
+        try {
+            return resolveComponent();
+        } finally {
+            componentLock.unlock();
+        }
+    }
+
+    private Component resolveComponent() {
         if (component == null && version != null) {
             this.component = treeParent.getRepository().getComponent(getGroupId(), getArtifactId(), getVersion(), null);
         } else if (component == null) {
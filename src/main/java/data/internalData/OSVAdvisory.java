@@ -0,0 +1,166 @@
+package data.internalData;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The fields of an OSV vulnerability entry that are written to the output files, without the json tree of the entry.
+ * <p>
+ * One instance is shared by all components the entry affects, the vulnerability repository keeps the newest instance of every id.
+ * The severities, references and affected packages are kept as json text, they are only parsed when a {@link OSVVulnerability} needs them.
+ */
+public final class OSVAdvisory {
+    private final String id;
+    private final String summary;
+    private final String details;
+    private final String modified;
+    private final String published;
+    private final List<String> aliases;
+    // database_specific.severity
+    private final String severity;
+    private final List<Integer> cwes;
+    private final List<String> recommendations;
+    private final String severities;
+    private final String references;
+    private final String affected;
+
+    private OSVAdvisory(JsonObject data) {
+        this.id = data.get("id").getAsString();
+        this.summary = getString(data, "summary");
+        this.details = getString(data, "details");
+        this.modified = getString(data, "modified");
+        this.published = getString(data, "published");
+        this.aliases = getStrings(data.get("aliases"));
+        this.recommendations = getStrings(data.get("recommendations"));
+
+        var databaseSpecific = data.has("database_specific") ? data.get("database_specific").getAsJsonObject() : new JsonObject();
+        this.severity = getString(databaseSpecific, "severity");
+        var cwes = new ArrayList<Integer>();
+        if (databaseSpecific.has("cwe_ids")) for (var cwe : databaseSpecific.get("cwe_ids").getAsJsonArray()) {
+            cwes.add(Integer.valueOf(cwe.getAsString().substring(4)));
+        }
+        this.cwes = List.copyOf(cwes);
+
+        this.severities = data.has("severity") ? data.get("severity").toString() : "[]";
+        this.references = data.has("references") ? data.get("references").toString() : "[]";
+        this.affected = data.has("affected") ? data.get("affected").toString() : "[]";
+    }
+
+    /**
+     * @param data the OSV json of the vulnerability
+     * @return the advisory
+     */
+    public static OSVAdvisory of(JsonObject data) {
+        return new OSVAdvisory(data);
+    }
+
+    private static String getString(JsonObject data, String key) {
+        var element = data.get(key);
+        return element == null || element.isJsonNull() ? null : element.getAsString();
+    }
+
+    private static List<String> getStrings(JsonElement element) {
+        if (element == null || !element.isJsonArray()) return List.of();
+        var list = new ArrayList<String>();
+        element.getAsJsonArray().forEach(it -> list.add(it.getAsString()));
+        return List.copyOf(list);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getSummary() {
+        return summary;
+    }
+
+    public String getDetails() {
+        return details;
+    }
+
+    public String getModified() {
+        return modified;
+    }
+
+    public String getPublished() {
+        return published;
+    }
+
+    public List<String> getAliases() {
+        return aliases;
+    }
+
+    public String getSeverity() {
+        return severity;
+    }
+
+    public List<Integer> getCwes() {
+        return cwes;
+    }
+
+    public List<String> getRecommendations() {
+        return recommendations;
+    }
+
+    /**
+     * @return the severities (CVSS vectors), parsed from the json text on every call
+     */
+    public JsonArray parseSeverities() {
+        return JsonParser.parseString(severities).getAsJsonArray();
+    }
+
+    /**
+     * @return the references, parsed from the json text on every call
+     */
+    public JsonArray parseReferences() {
+        return JsonParser.parseString(references).getAsJsonArray();
+    }
+
+    /**
+     * @return the affected packages, parsed from the json text on every call
+     */
+    public JsonArray parseAffected() {
+        return JsonParser.parseString(affected).getAsJsonArray();
+    }
+
+    /**
+     * @return the OSV json of the fields of this advisory
+     */
+    public JsonObject toJson() {
+        var data = new JsonObject();
+        data.addProperty("id", id);
+        if (summary != null) data.addProperty("summary", summary);
+        if (details != null) data.addProperty("details", details);
+        if (modified != null) data.addProperty("modified", modified);
+        if (published != null) data.addProperty("published", published);
+        if (!aliases.isEmpty()) data.add("aliases", toArray(aliases));
+        if (!recommendations.isEmpty()) data.add("recommendations", toArray(recommendations));
+
+        var severityArray = parseSeverities();
+        if (!severityArray.isEmpty()) data.add("severity", severityArray);
+
+        var databaseSpecific = new JsonObject();
+        if (severity != null) databaseSpecific.addProperty("severity", severity);
+        if (!cwes.isEmpty()) {
+            var cweArray = new JsonArray();
+            cwes.forEach(cwe -> cweArray.add("CWE-" + cwe));
+            databaseSpecific.add("cwe_ids", cweArray);
+        }
+        data.add("database_specific", databaseSpecific);
+
+        data.add("references", parseReferences());
+        data.add("affected", parseAffected());
+        return data;
+    }
+
+    private static JsonArray toArray(List<String> values) {
+        var array = new JsonArray();
+        values.forEach(array::add);
+        return array;
+    }
+}
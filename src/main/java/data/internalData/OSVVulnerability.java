@@ -17,35 +17,24 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
+/**
+ * A vulnerability of a component. The data is shared with the other components the vulnerability affects (see {@link OSVAdvisory}),
+ * the references, affects and ratings are created on first access.
+ */
 public class OSVVulnerability implements Vulnerability {
     Component component;
-    JsonObject data;
-    List<VulnerabilityReference> vulnerabilityReferences;
-    List<VulnerabilityAffects> vulnerabilityAffects;
-    List<VulnerabilityRating> vulnerabilitySeverities;
-    Timestamp modified ;
-    Timestamp published;
+    OSVAdvisory advisory;
+    private volatile List<VulnerabilityReference> vulnerabilityReferences;
+    private volatile List<VulnerabilityAffects> vulnerabilityAffects;
+    private volatile List<VulnerabilityRating> vulnerabilitySeverities;
 
-    public OSVVulnerability(Component component, JsonObject data) {
+    public OSVVulnerability(Component component, OSVAdvisory advisory) {
         this.component = component;
-        this.data = data;
-        this.vulnerabilityReferences = new ArrayList<>();
-        for (JsonElement reference : data.get("references").getAsJsonArray()) {
-            vulnerabilityReferences.add(new OSVVulnerabilityReference(this, reference.getAsJsonObject()));
-        }
-        this.vulnerabilityAffects = new ArrayList<>();
-        for (JsonElement affects : data.get("affected").getAsJsonArray()) {
-            vulnerabilityAffects.add(new OSVVulnerabilityAffects(this, affects.getAsJsonObject()));
-        }
-        this.vulnerabilitySeverities = new ArrayList<>();
-        if (data.has("severity")) for (JsonElement severity : data.get("severity").getAsJsonArray()) {
-            vulnerabilitySeverities.add(new OSVVulnerabilityRating(this, severity.getAsJsonObject(), data.get("database_specific").getAsJsonObject()));
-        }
-
-        this.modified = Timestamp.of(LocalDateTime.parse(data.get("modified").getAsString(), DateTimeFormatter.ISO_DATE_TIME).atZone(ZoneId.of("Z")).toEpochSecond(), 0);
-        this.published = Timestamp.of(LocalDateTime.parse(data.get("published").getAsString(), DateTimeFormatter.ISO_DATE_TIME).atZone(ZoneId.of("Z")).toEpochSecond(), 0);
-
+        this.advisory = advisory;
+    }
 
+    public OSVVulnerability(Component component, JsonObject data) {
+        this(component, OSVAdvisory.of(data));
     }
 
     @Override
@@ -55,72 +44,89 @@ public class OSVVulnerability implements Vulnerability {
 
     @Override
     public String getId() {
-        return data.get("id").getAsString();
+        return advisory.getId();
     }
 
     @Override
     public String getDescription() {
-        return data.get("summary").getAsString();
+        return advisory.getSummary();
     }
 
     @Override
     public String getDetails() {
-        return data.get("details").getAsString();
+        return advisory.getDetails();
     }
 
     @Override
     public List<Property> getAllProperties() {
         var l = new ArrayList<Property>();
-        if (data.get("aliases") == null) return l;
-        for (var alias : data.get("aliases").getAsJsonArray()) {
-            l.add(Property.of("alias", alias.getAsString()));
+        for (var alias : advisory.getAliases()) {
+            l.add(Property.of("alias", alias));
         }
         return l;
     }
 
     @Override
     public data.Timestamp getModified() {
-        return modified;
+        return parseTimestamp(advisory.getModified());
     }
 
     @Override
     public data.Timestamp getPublished() {
-        return published;
+        return parseTimestamp(advisory.getPublished());
+    }
+
+    private static Timestamp parseTimestamp(String timestamp) {
+        if (timestamp == null) return null;
+        // with nanos, so the timestamp written to a document can be compared with the modified timestamp of OSV
+        var dateTime = LocalDateTime.parse(timestamp, DateTimeFormatter.ISO_DATE_TIME).atZone(ZoneId.of("Z"));
+        return Timestamp.of(dateTime.toEpochSecond(), dateTime.getNano());
     }
 
     @Override
     public List<VulnerabilityRating> getAllRatings() {
-        return this.vulnerabilitySeverities;
+        if (vulnerabilitySeverities == null) {
+            var ratings = new ArrayList<VulnerabilityRating>();
+            for (JsonElement severity : advisory.parseSeverities()) {
+                ratings.add(new OSVVulnerabilityRating(this, severity.getAsJsonObject().get("score").getAsString(), advisory.getSeverity()));
+            }
+            vulnerabilitySeverities = ratings;
+        }
+        return vulnerabilitySeverities;
     }
 
     @Override
     public List<VulnerabilityReference> getAllReferences() {
+        if (vulnerabilityReferences == null) {
+            var references = new ArrayList<VulnerabilityReference>();
+            for (JsonElement reference : advisory.parseReferences()) {
+                references.add(new OSVVulnerabilityReference(this, reference.getAsJsonObject()));
+            }
+            vulnerabilityReferences = references;
+        }
         return vulnerabilityReferences;
     }
 
     @Override
     public List<VulnerabilityAffects> getAllAffects() {
+        if (vulnerabilityAffects == null) {
+            var affects = new ArrayList<VulnerabilityAffects>();
+            for (JsonElement affected : advisory.parseAffected()) {
+                affects.add(new OSVVulnerabilityAffects(this, affected.getAsJsonObject()));
+            }
+            vulnerabilityAffects = affects;
+        }
         return vulnerabilityAffects;
     }
 
     @Override
     public List<Integer> getAllCwes() {
-        var l = new ArrayList<Integer>();
-        if (data.get("database_specific").getAsJsonObject().get("cwe_ids") == null) return l;
-        for (var cwe : data.get("database_specific").getAsJsonObject().get("cwe_ids").getAsJsonArray()) {
-            l.add(Integer.valueOf(cwe.getAsString().substring(4)));
-        }
-        return l;
+        return new ArrayList<>(advisory.getCwes());
     }
 
     @Override
     public List<String> getAllRecommendations() {
-        var l = new ArrayList<String>();
-        if (data.get("recommendations") == null) return l;
-        for (var recommendation : data.get("recommendations").getAsJsonArray()) {
-            l.add(recommendation.getAsString());
-        }
-        return l;
+        return new ArrayList<>(advisory.getRecommendations());
     }
 
     @Override
@@ -128,6 +134,13 @@ public class OSVVulnerability implements Vulnerability {
         return Property.of("NVD", "https://osv.dev");
     }
 
+    /**
+     * @return the shared data of this vulnerability
+     */
+    public OSVAdvisory getAdvisory() {
+        return advisory;
+    }
+
     @Override
     public final boolean equals(Object o) {
         if (this == o) return true;
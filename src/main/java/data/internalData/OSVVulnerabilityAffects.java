@@ -1,80 +1,83 @@
 package data.internalData;
 
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import data.Component;
 import data.Version;
 import data.Vulnerability;
 import data.VulnerabilityAffectedVersion;
 import data.VulnerabilityAffects;
+import data.internalData.VersionIntervalIndex.Interval;
 
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * An affected package of an OSV vulnerability. The versions and ranges are parsed once, when it is created.
+ */
 public class OSVVulnerabilityAffects implements VulnerabilityAffects {
-    JsonObject data;
     Vulnerability vulnerability;
+    private final String purl;
+    private final List<VulnerabilityAffectedVersion> versions;
+    private final List<Interval> intervals;
 
     public OSVVulnerabilityAffects(Vulnerability vulnerability, JsonObject data) {
         this.vulnerability = vulnerability;
-        this.data = data;
+
+        var affectedPackage = data.has("package") ? data.get("package").getAsJsonObject() : new JsonObject();
+        this.purl = affectedPackage.has("purl") ? affectedPackage.get("purl").getAsString() : null;
+
+        var versions = new ArrayList<VulnerabilityAffectedVersion>();
+        if (data.has("versions")) for (var version : data.get("versions").getAsJsonArray()) {
+            versions.add(VulnerabilityAffectedVersion.of(Version.of(version.getAsString()), "VULNERABILITY_AFFECTED_STATUS_AFFECTED", null));
+        }
+        this.versions = List.copyOf(versions);
+        this.intervals = VersionIntervalIndex.parseRanges(data);
     }
 
     public String getPackage() {
-        return data.get("package").getAsJsonObject().get("purl").getAsString();
+        return purl;
     }
 
+    /**
+     * @return the version the first affected interval starts with or null if it is unbounded
+     */
     public Version getIntroduced() {
-        var ranges = data.get("introduced").getAsJsonArray();
-        for (JsonElement range : ranges) {
-            var r = range.getAsJsonObject();
-            if (r.get("type").getAsString().equals("ECOSYSTEM")) {
-                var events = r.get("events").getAsJsonObject();
-                if (events.has("introduced")) {
-                    return Version.of(events.get("introduced").getAsString());
-                }
-            }
-        }
-        return null;
+        return intervals.isEmpty() ? null : intervals.get(0).start();
     }
 
+    /**
+     * @return the version the first affected interval is fixed in or null if there is none
+     */
     public Version getFixed() {
-        var ranges = data.get("fixed").getAsJsonArray();
-        for (JsonElement range : ranges) {
-            var r = range.getAsJsonObject();
-            if (r.get("type").getAsString().equals("ECOSYSTEM")) {
-                var events = r.get("events").getAsJsonObject();
-                if (events.has("fixed")) {
-                    return Version.of(events.get("fixed").getAsString());
-                }
-            }
+        for (var interval : intervals) {
+            if (interval.end() != null && !interval.endInclusive()) return interval.end();
         }
         return null;
     }
 
-    @Override
-    public List<VulnerabilityAffectedVersion> allVersions() {
-        var l = new ArrayList<VulnerabilityAffectedVersion>();
-        if (data.get("versions") == null) return l;
-        for (var version : data.get("versions").getAsJsonArray()) {
-            l.add(new VulnerabilityAffectedVersion() {
-                @Override
-                public Version version() {
-                    return Version.of(version.getAsString());
-                }
-
-                @Override
-                public String affectedStatus() {
-                    return "VULNERABILITY_AFFECTED_STATUS_AFFECTED";
-                }
+    /**
+     * @return the affected intervals, sorted by their start
+     */
+    public List<Interval> getIntervals() {
+        return intervals;
+    }
 
-                @Override
-                public String versionRange() {
-                    return null;
-                }
-            });
+    /**
+     * @return true if the version is one of the affected versions or in one of the affected intervals
+     */
+    public boolean affects(Version version) {
+        for (var affectedVersion : versions) {
+            if (affectedVersion.version().version().equals(version.version())) return true;
         }
-        return l;
+        for (var interval : intervals) {
+            if (interval.contains(version)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public List<VulnerabilityAffectedVersion> allVersions() {
+        return new ArrayList<>(versions);
     }
 
     @Override
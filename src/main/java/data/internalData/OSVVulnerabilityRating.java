@@ -1,6 +1,5 @@
 package data.internalData;
 
-import com.google.gson.JsonObject;
 import data.Property;
 import data.Vulnerability;
 import data.VulnerabilityRating;
@@ -9,21 +8,25 @@ import org.metaeffekt.core.security.cvss.CvssVector;
 
 public class OSVVulnerabilityRating implements VulnerabilityRating {
     Vulnerability vulnerability;
-    JsonObject severity, database_specific;
+    String vector, severity;
     CvssVector cvss;
     String cvssVersion;
 
-    public OSVVulnerabilityRating(Vulnerability vulnerability, JsonObject severity, JsonObject database_specific) {
+    /**
+     * @param vulnerability the vulnerability
+     * @param vector        the CVSS vector
+     * @param severity      the severity of the vulnerability (from database_specific)
+     */
+    public OSVVulnerabilityRating(Vulnerability vulnerability, String vector, String severity) {
         this.vulnerability = vulnerability;
+        this.vector = vector;
         this.severity = severity;
-        this.database_specific = database_specific;
         this.calculateCVSS();
     }
 
     private void calculateCVSS() {
-        var cvssVector = severity.get("score").getAsString();
-        cvssVersion = cvssVector.substring(0, cvssVector.indexOf("/"));
-        cvss = CvssVector.parseVector(cvssVector);
+        cvssVersion = vector.substring(0, vector.indexOf("/"));
+        cvss = CvssVector.parseVector(vector);
     }
 
     @Override
@@ -43,7 +46,7 @@ public class OSVVulnerabilityRating implements VulnerabilityRating {
 
     @Override
     public String severity() {
-        return database_specific.get("severity").getAsString();
+        return severity;
     }
 
     @Override
@@ -53,7 +56,7 @@ public class OSVVulnerabilityRating implements VulnerabilityRating {
 
     @Override
     public String vector() {
-        return severity.get("score").getAsString();
+        return vector;
     }
 
     @Override
@@ -1,6 +1,7 @@
 package data.internalData;
 
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import data.License;
 import data.Licensing;
 import data.Property;
@@ -13,13 +14,32 @@ import java.util.StringJoiner;
 
 public class SPDXLicense implements License {
     JsonObject data;
-    JsonObject details;
+    private JsonObject details;
+    // the details as json text, until they are used the first time
+    private String detailsJson;
 
     public SPDXLicense(JsonObject data, JsonObject details) {
         this.data = data;
         this.details = details;
     }
 
+    /**
+     * @param data        the entry of the license list
+     * @param detailsJson the details as json text, they are only parsed if they are used
+     */
+    public SPDXLicense(JsonObject data, String detailsJson) {
+        this.data = data;
+        this.detailsJson = detailsJson;
+    }
+
+    private synchronized JsonObject details() {
+        if (detailsJson != null) {
+            details = JsonParser.parseString(detailsJson).getAsJsonObject();
+            detailsJson = null;
+        }
+        return details;
+    }
+
     @Override
     public String id() {
         return data.get("licenseId").getAsString();
@@ -43,10 +63,18 @@ public class SPDXLicense implements License {
 
     @Override
     public String text() {
+        var details = details();
         if (details == null) return null;
         return details.get("licenseText").getAsString();
     }
 
+    /**
+     * @return true if the id is deprecated, e.g. GPL-2.0 in favor of GPL-2.0-only
+     */
+    public boolean isDeprecated() {
+        return data.has("isDeprecatedLicenseId") && data.get("isDeprecatedLicenseId").getAsBoolean();
+    }
+
     @Override
     public String url() {
         return data.get("detailsUrl").getAsString();
@@ -66,6 +94,7 @@ public class SPDXLicense implements License {
         Optional.ofNullable(data.get("isOsiApproved")).ifPresent(s -> l.add(Property.of("isOsiApproved", s.getAsString())));
         Optional.ofNullable(data.get("isFsfLibre")).ifPresent(s -> l.add(Property.of("isFsfLibre", s.getAsString())));
 
+        var details = details();
         if (details != null) {
             l.add(Property.of("standardLicenseTemplate", details.get("standardLicenseTemplate").getAsString()));
             l.add(Property.of("name", details.get("name").getAsString()));
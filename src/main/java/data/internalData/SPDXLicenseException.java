@@ -1,6 +1,7 @@
 package data.internalData;
 
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import data.LicenseException;
 import data.Licensing;
 import data.Property;
@@ -9,13 +10,32 @@ import java.util.List;
 
 public class SPDXLicenseException implements LicenseException {
     JsonObject data;
-    JsonObject details;
+    private JsonObject details;
+    // the details as json text, until they are used the first time
+    private String detailsJson;
 
     public SPDXLicenseException(JsonObject data, JsonObject details) {
         this.data = data;
         this.details = details;
     }
 
+    /**
+     * @param data        the entry of the license exception list
+     * @param detailsJson the details as json text, they are only parsed if they are used
+     */
+    public SPDXLicenseException(JsonObject data, String detailsJson) {
+        this.data = data;
+        this.detailsJson = detailsJson;
+    }
+
+    private synchronized JsonObject details() {
+        if (detailsJson != null) {
+            details = JsonParser.parseString(detailsJson).getAsJsonObject();
+            detailsJson = null;
+        }
+        return details;
+    }
+
     @Override
     public String id() {
         return data.get("licenseExceptionId").getAsString();
@@ -33,12 +53,12 @@ public class SPDXLicenseException implements LicenseException {
 
     @Override
     public String text() {
-        return details.get("licenseExceptionText").getAsString();
+        return details().get("licenseExceptionText").getAsString();
     }
 
     @Override
     public String url() {
-        return details.get("seeAlso").getAsString();
+        return details().get("seeAlso").getAsString();
     }
 
     @Override
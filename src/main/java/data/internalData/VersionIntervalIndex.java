@@ -0,0 +1,252 @@
+package data.internalData;
+
+import com.google.gson.JsonObject;
+import data.Version;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds the OSV advisories that affect a version of a package.
+ * <p>
+ * The ranges of an advisory are resolved into intervals of parsed versions once, when they are added (see {@link #parseRanges(JsonObject)}).
+ * For every package, the start and end versions of all its intervals are sorted into one array of boundaries, and every advisory is assigned to the slots between and on the boundaries it covers.
+ * A lookup is a binary search for the slot of the version plus a hash lookup of the exact affected versions.
+ * The slots of a package are built on its first lookup after an advisory of the package was added.
+ * <p>
+ * The version comparison is not transitive, it stops at the first part that is not numeric: 1.0-beta compares equal to 1.0.0 and to 1.0.1.
+ * The boundaries are sorted with {@link Version.VersionRecord.TotalOrder}, which agrees with the comparison whenever it does not return 0.
+ * A version that compares equal to a boundary it is not identical to (see {@link PackageIndex#isAmbiguous(Version.VersionRecord)}) may belong to other slots than the binary search finds,
+ * it is compared with every interval of the package instead, like {@link Interval#contains(Version)}.
+ */
+public class VersionIntervalIndex {
+    private static final String[] noIds = new String[0];
+    private static final Comparator<Version> order = Version.VersionRecord.TotalOrder.INSTANCE;
+
+    /**
+     * An interval of affected versions. The start is inclusive, a null start or end is unbounded.
+     */
+    public record Interval(Version start, Version end, boolean endInclusive) {
+        public boolean contains(Version version) {
+            if (start != null && version.compareTo(start) < 0) return false;
+            if (end == null) return true;
+            var comparison = version.compareTo(end);
+            return endInclusive ? comparison <= 0 : comparison < 0;
+        }
+    }
+
+    /**
+     * @param boundaries       the start and end versions of all intervals, sorted by {@link Version.VersionRecord.TotalOrder}
+     * @param slots            the ids per slot: slot 2i is the versions before boundary i (and after boundary i - 1), slot 2i + 1 is boundary i itself
+     * @param versions         exact version -> ids
+     * @param intervals        id -> intervals, for the versions the slots do not apply to
+     * @param qualifiedNumbers the keys of the numeric parts of the boundaries that have a part that is not numeric, see {@link #numbersKey(Version.VersionRecord, int)}
+     * @param numberPrefixes   the keys of the proper prefixes of the numeric parts of all boundaries
+     */
+    private record PackageIndex(Version[] boundaries, String[][] slots, Map<String, String[]> versions, Map<String, List<Interval>> intervals,
+                                Set<Long> qualifiedNumbers, Set<Long> numberPrefixes) {
+        List<String> query(Version version) {
+            var exact = versions.getOrDefault(version.version(), noIds);
+            if (isAmbiguous(parsed(version))) return queryIntervals(version, exact);
+
+            var i = Arrays.binarySearch(boundaries, version, order);
+            var inRange = slots[i >= 0 ? 2 * i + 1 : 2 * (-i - 1)];
+            if (exact.length == 0) return List.of(inRange);
+
+            var result = new LinkedHashSet<String>();
+            result.addAll(Arrays.asList(exact));
+            result.addAll(Arrays.asList(inRange));
+            return new ArrayList<>(result);
+        }
+
+        /**
+         * The comparison of two versions returns 0 without them being equal if one of them has a part that is not numeric before the other one ends,
+         * and their numeric parts agree up to there. The binary search can then find the wrong slot. This checks if the version could compare like that with a boundary:
+         * <ul>
+         *     <li>a boundary with a part that is not numeric, whose numeric parts are a prefix of the numeric parts of the version</li>
+         *     <li>or, if the version has a part that is not numeric, a boundary whose numeric parts start with the numeric parts of the version</li>
+         * </ul>
+         * Both are checked with hash lookups, a hash collision only means that the version is compared with every interval.
+         */
+        boolean isAmbiguous(Version.VersionRecord version) {
+            var count = version.numericPartCount();
+            var last = version.isQualified() ? count : count - 1;
+            for (int length = 0; length <= last; length++) {
+                if (qualifiedNumbers.contains(numbersKey(version, length))) return true;
+            }
+            return version.isQualified() && numberPrefixes.contains(numbersKey(version, count));
+        }
+
+        private List<String> queryIntervals(Version version, String[] exact) {
+            var result = new LinkedHashSet<>(Arrays.asList(exact));
+            intervals.forEach((id, list) -> {
+                for (var interval : list) {
+                    if (interval.contains(version)) {
+                        result.add(id);
+                        return;
+                    }
+                }
+            });
+            return new ArrayList<>(result);
+        }
+    }
+
+    private static Version.VersionRecord parsed(Version version) {
+        return version instanceof Version.VersionRecord record ? record : (Version.VersionRecord) Version.of(version.version());
+    }
+
+    /**
+     * @return a hash of the first length numeric parts of the version
+     */
+    private static long numbersKey(Version.VersionRecord version, int length) {
+        var hash = 17L;
+        for (int i = 0; i < length; i++) hash = hash * 0x100000001B3L + version.numericPart(i);
+        return hash * 31 + length;
+    }
+
+    // package name -> id -> intervals
+    private final Map<String, Map<String, List<Interval>>> intervals = new HashMap<>();
+    // package name -> exact version -> ids
+    private final Map<String, Map<String, Set<String>>> versions = new HashMap<>();
+    private final Map<String, PackageIndex> packages = new ConcurrentHashMap<>();
+
+    /**
+     * Resolves the events of the ranges of an affected package into intervals, sorted by their start: every introduced event starts an interval that ends at the next fixed or last_affected event.
+     * Git ranges are ignored, they cannot be compared with versions.
+     *
+     * @param affected an element of the affected array of an OSV entry
+     * @return the intervals
+     */
+    public static List<Interval> parseRanges(JsonObject affected) {
+        var result = new ArrayList<Interval>();
+        if (!affected.has("ranges")) return result;
+
+        for (var rangeElement : affected.get("ranges").getAsJsonArray()) {
+            var range = rangeElement.getAsJsonObject();
+            if (range.has("type") && range.get("type").getAsString().equals("GIT")) continue;
+            if (!range.has("events")) continue;
+
+            Version introduced = null;
+            var open = false;
+            for (var eventElement : range.get("events").getAsJsonArray()) {
+                var event = eventElement.getAsJsonObject();
+                if (event.has("introduced")) {
+                    if (open) continue;
+                    var version = event.get("introduced").getAsString();
+                    introduced = version.equals("0") ? null : Version.of(version);
+                    open = true;
+                } else if (event.has("fixed") && open) {
+                    result.add(new Interval(introduced, Version.of(event.get("fixed").getAsString()), false));
+                    open = false;
+                } else if (event.has("last_affected") && open) {
+                    result.add(new Interval(introduced, Version.of(event.get("last_affected").getAsString()), true));
+                    open = false;
+                }
+            }
+            if (open) result.add(new Interval(introduced, null, false));
+        }
+
+        result.sort(Comparator.comparing(Interval::start, Comparator.nullsFirst(order)));
+        return result;
+    }
+
+    /**
+     * Adds the affected versions of an advisory for a package.
+     *
+     * @param packageName the package name, for maven groupId:artifactId
+     * @param id          the id of the advisory
+     * @param versions    the exact affected versions
+     * @param intervals   the affected intervals
+     */
+    public synchronized void add(String packageName, String id, Collection<String> versions, Collection<Interval> intervals) {
+        if (!versions.isEmpty()) {
+            var packageVersions = this.versions.computeIfAbsent(packageName, k -> new HashMap<>());
+            versions.forEach(version -> packageVersions.computeIfAbsent(version, k -> new LinkedHashSet<>()).add(id));
+        }
+        this.intervals.computeIfAbsent(packageName, k -> new LinkedHashMap<>()).computeIfAbsent(id, k -> new ArrayList<>()).addAll(intervals);
+        packages.remove(packageName);
+    }
+
+    /**
+     * @return true if an advisory was added for the package
+     */
+    public synchronized boolean contains(String packageName) {
+        return intervals.containsKey(packageName);
+    }
+
+    /**
+     * @param packageName the package name, for maven groupId:artifactId
+     * @param version     the version
+     * @return the ids of the advisories that affect the version of the package
+     */
+    public List<String> query(String packageName, Version version) {
+        var packageIndex = packages.get(packageName);
+        if (packageIndex == null) {
+            synchronized (this) {
+                if (!intervals.containsKey(packageName)) return List.of();
+                packageIndex = packages.computeIfAbsent(packageName, this::build);
+            }
+        }
+        return packageIndex.query(version);
+    }
+
+    private PackageIndex build(String packageName) {
+        var packageIntervals = intervals.get(packageName);
+
+        // versions with the same numeric parts and number of parts are one boundary, they compare the same with every version
+        var boundarySet = new TreeSet<>(order);
+        packageIntervals.values().forEach(list -> list.forEach(interval -> {
+            if (interval.start() != null) boundarySet.add(interval.start());
+            if (interval.end() != null) boundarySet.add(interval.end());
+        }));
+        var boundaries = boundarySet.toArray(new Version[0]);
+
+        var slotIds = new ArrayList<Set<String>>(2 * boundaries.length + 1);
+        for (int i = 0; i < 2 * boundaries.length + 1; i++) slotIds.add(null);
+        packageIntervals.forEach((id, list) -> {
+            for (var interval : list) {
+                var from = interval.start() == null ? 0 : 2 * Arrays.binarySearch(boundaries, interval.start(), order) + 1;
+                var to = interval.end() == null ? 2 * boundaries.length : 2 * Arrays.binarySearch(boundaries, interval.end(), order) + (interval.endInclusive() ? 1 : 0);
+                for (int slot = from; slot <= to; slot++) {
+                    if (slotIds.get(slot) == null) slotIds.set(slot, new LinkedHashSet<>());
+                    slotIds.get(slot).add(id);
+                }
+            }
+        });
+
+        // neighbouring slots with the same ids share one array
+        var slots = new String[slotIds.size()][];
+        for (int i = 0; i < slots.length; i++) {
+            var ids = slotIds.get(i);
+            if (ids == null) slots[i] = noIds;
+            else if (i > 0 && ids.equals(slotIds.get(i - 1))) slots[i] = slots[i - 1];
+            else slots[i] = ids.toArray(noIds);
+        }
+
+        var packageVersions = new HashMap<String, String[]>();
+        versions.getOrDefault(packageName, Map.of()).forEach((version, ids) -> packageVersions.put(version, ids.toArray(noIds)));
+
+        var qualifiedNumbers = new HashSet<Long>();
+        var numberPrefixes = new HashSet<Long>();
+        for (var boundary : boundaries) {
+            var record = parsed(boundary);
+            if (record.isQualified()) qualifiedNumbers.add(numbersKey(record, record.numericPartCount()));
+            for (int length = 0; length < record.numericPartCount(); length++) numberPrefixes.add(numbersKey(record, length));
+        }
+
+        var packageIntervalsCopy = new LinkedHashMap<String, List<Interval>>();
+        packageIntervals.forEach((id, list) -> packageIntervalsCopy.put(id, List.copyOf(list)));
+        return new PackageIndex(boundaries, slots, packageVersions, packageIntervalsCopy, qualifiedNumbers, numberPrefixes);
+    }
+}
@@ -14,6 +14,7 @@ import data.Property;
 import data.ReadComponent;
 import data.Version;
 import data.Vulnerability;
+import data.VulnerabilitySet;
 import dependencyCrawler.DependencyCrawlerInput;
 import logger.Logger;
 import repository.ComponentRepository;
@@ -26,6 +27,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -35,6 +37,7 @@ public class ReadSBomComponent implements ReadComponent {
     Component actualComponent;
     private final Bom16.Component bomComponent;
     private final DependencyCrawlerInput.Type type;
+    private final ReentrantLock loadLock = new ReentrantLock();
 
     List<Property> properties = new ArrayList<>();
     List<Person> authors = new ArrayList<>();
@@ -42,7 +45,7 @@ public class ReadSBomComponent implements ReadComponent {
     List<LicenseChoice> licenseChoices = new ArrayList<>();
     List<ExternalReference> externalReferences = new ArrayList<>();
     List<Hash> hashes = new ArrayList<>();
-    List<Vulnerability> vulnerabilities = new ArrayList<>();
+    VulnerabilitySet vulnerabilities = new VulnerabilitySet();
     String groupId;
     String artifactId;
     Version version;
@@ -105,7 +108,16 @@ public class ReadSBomComponent implements ReadComponent {
      * Updates the read component
      */
     @Override
-    public synchronized void loadComponent() {
+    public void loadComponent() {
+        loadLock.lock();
+        try {
+            load();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private void load() {
         if (this.isRoot || this.actualComponent.isLoaded())
             return;
 
@@ -138,7 +150,7 @@ public class ReadSBomComponent implements ReadComponent {
         }
 
         //Vulnerabilities
-        this.vulnerabilities = VulnerabilityRepository.getInstance().getVulnerabilities(this);
+        this.vulnerabilities = new VulnerabilitySet(VulnerabilityRepository.getInstance().getVulnerabilities(this));
 
     }
 
@@ -271,7 +283,7 @@ public class ReadSBomComponent implements ReadComponent {
     }
 
     @Override
-    public List<Vulnerability> getAllVulnerabilities() {
+    public VulnerabilitySet getAllVulnerabilities() {
         return this.vulnerabilities;
     }
 
@@ -319,7 +331,7 @@ public class ReadSBomComponent implements ReadComponent {
 
     @Override
     public void removeVulnerability(Vulnerability newVul) {
-        this.vulnerabilities.add(newVul);
+        this.vulnerabilities.remove(newVul);
     }
 
     @Override
@@ -79,7 +79,7 @@ public class ReadSBomVulnerability implements Vulnerability {
             return loadedVulnerability.getModified();
         }
         if (bomVulnerability.hasUpdated()) {
-            return Timestamp.of(bomVulnerability.getPublished().getSeconds(), bomVulnerability.getPublished().getNanos());
+            return Timestamp.of(bomVulnerability.getUpdated().getSeconds(), bomVulnerability.getUpdated().getNanos());
         }
         return null;
     }
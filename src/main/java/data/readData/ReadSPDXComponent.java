@@ -12,6 +12,7 @@ import data.Property;
 import data.ReadComponent;
 import data.Version;
 import data.Vulnerability;
+import data.VulnerabilitySet;
 import dependencyCrawler.DependencyCrawlerInput;
 import logger.Logger;
 import org.spdx.library.model.SpdxPackage;
@@ -25,6 +26,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -32,11 +34,12 @@ public class ReadSPDXComponent implements ReadComponent {
     private final static Logger logger = Logger.of("ReadSPDXComponent");
     SpdxPackage spdxPackage;
     DependencyCrawlerInput.Type type;
+    private final ReentrantLock loadLock = new ReentrantLock();
     List<Dependency> dependencies = new ArrayList<>();
     List<LicenseChoice> licenseChoices = new ArrayList<>();
     List<ExternalReference> externalReferences = new ArrayList<>();
     List<Hash> hashes = new ArrayList<>();
-    List<Vulnerability> vulnerabilities = new ArrayList<>();
+    VulnerabilitySet vulnerabilities = new VulnerabilitySet();
     String groupId;
     String artifactId;
     Version version;
@@ -87,7 +90,16 @@ public class ReadSPDXComponent implements ReadComponent {
     }
 
     @Override
-    public synchronized void loadComponent() {
+    public void loadComponent() {
+        loadLock.lock();
+        try {
+            load();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private void load() {
         if (actualComponent.isLoaded()) return;
 
         actualComponent.loadComponent();
@@ -121,7 +133,7 @@ public class ReadSPDXComponent implements ReadComponent {
         this.hashes = this.actualComponent.getAllHashes().stream().map(hashLoaded -> hashesGiven.getOrDefault(hashLoaded.algorithm(), hashLoaded)).collect(Collectors.toList());
 
         //Vulnerabilities
-        this.vulnerabilities = VulnerabilityRepository.getInstance().getVulnerabilities(this);
+        this.vulnerabilities = new VulnerabilitySet(VulnerabilityRepository.getInstance().getVulnerabilities(this));
     }
 
     @Override
@@ -250,7 +262,7 @@ public class ReadSPDXComponent implements ReadComponent {
     }
 
     @Override
-    public List<Vulnerability> getAllVulnerabilities() {
+    public VulnerabilitySet getAllVulnerabilities() {
         return vulnerabilities;
     }
 
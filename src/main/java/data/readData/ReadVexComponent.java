@@ -10,15 +10,21 @@ import data.Person;
 import data.Property;
 import data.Version;
 import data.Vulnerability;
+import data.VulnerabilitySet;
 import repository.ComponentRepository;
 import repository.repositoryImpl.VulnerabilityRepositoryImpl;
 
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class ReadVexComponent implements Component {
-    private final List<Vulnerability> vulnerabilities;
-    private boolean loaded;
+    private final VulnerabilitySet vulnerabilities;
+    // id -> index of the vulnerability in the VEX file
+    private final Map<String, Integer> positions = new HashMap<>();
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile boolean loaded;
     private final String group;
     private final String name;
     private final Version version;
@@ -28,11 +34,20 @@ public class ReadVexComponent implements Component {
         this.name = name;
         this.version = version;
         this.loaded = false;
-        this.vulnerabilities = new ArrayList<>();
+        this.vulnerabilities = new VulnerabilitySet();
     }
 
     @Override
-    public synchronized void loadComponent() {
+    public void loadComponent() {
+        loadLock.lock();
+        try {
+            load();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private void load() {
         VulnerabilityRepositoryImpl.getInstance().updateVulnerabilities(this);
 
         loaded = true;
@@ -50,7 +65,7 @@ public class ReadVexComponent implements Component {
 
     @Override
     public String getQualifiedName() {
-        return group + ":" + name + ":" + version;
+        return group + ":" + name + ":" + version.version();
     }
 
     @Override
@@ -129,7 +144,7 @@ public class ReadVexComponent implements Component {
     }
 
     @Override
-    public List<Vulnerability> getAllVulnerabilities() {
+    public VulnerabilitySet getAllVulnerabilities() {
         return vulnerabilities;
     }
 
@@ -161,7 +176,9 @@ public class ReadVexComponent implements Component {
     @Override
     public <T> void setData(String key, T value) {
         if (key.equals("addVulnerability")) {
-            this.vulnerabilities.add((Vulnerability) value);
+            var vulnerability = (ReadVexVulnerability) value;
+            this.vulnerabilities.add(vulnerability);
+            this.positions.putIfAbsent(vulnerability.getId(), vulnerability.getPosition());
         }
 
     }
@@ -181,6 +198,19 @@ public class ReadVexComponent implements Component {
         this.vulnerabilities.add(vulnerability);
     }
 
+    @Override
+    public void replaceVulnerability(Vulnerability vulnerability, Vulnerability replacement) {
+        this.vulnerabilities.put(replacement);
+    }
+
+    /**
+     * @param id the id of a vulnerability
+     * @return the index of the vulnerability in the VEX file or {@link Integer#MAX_VALUE} if it was not part of the file
+     */
+    public int getDocumentPosition(String id) {
+        return positions.getOrDefault(id, Integer.MAX_VALUE);
+    }
+
 
     @Override
     public String toString() {
@@ -9,6 +9,8 @@ import data.VulnerabilityAffects;
 import data.VulnerabilityRating;
 import data.VulnerabilityReference;
 
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -16,10 +18,29 @@ import java.util.List;
 public class ReadVexVulnerability implements Vulnerability {
     private final JsonObject data;
     private final Component component;
+    private final int position;
 
-    public ReadVexVulnerability(Component component, JsonObject vulJson) {
+    /**
+     * @param position the index of the vulnerability in the VEX file
+     */
+    public ReadVexVulnerability(Component component, JsonObject vulJson, int position) {
         this.component = component;
         this.data = vulJson;
+        this.position = position;
+    }
+
+    /**
+     * @return the vulnerability as it was read from the VEX file
+     */
+    public JsonObject getJson() {
+        return data;
+    }
+
+    /**
+     * @return the index of the vulnerability in the VEX file
+     */
+    public int getPosition() {
+        return position;
     }
 
     @Override
@@ -49,9 +70,18 @@ public class ReadVexVulnerability implements Vulnerability {
         return null;
     }
 
+    /**
+     * @return the updated timestamp the vulnerability was written with, the modified timestamp of OSV at that time
+     */
     @Override
     public Timestamp getModified() {
-        return null;
+        if (!data.has("updated")) return null;
+        try {
+            var updated = Instant.parse(data.get("updated").getAsString());
+            return Timestamp.of(updated.getEpochSecond(), updated.getNano());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
     }
 
     @Override
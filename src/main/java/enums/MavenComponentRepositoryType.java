@@ -2,10 +2,12 @@ package enums;
 
 /**
  * Default Maven Repositorys and their URLs.
+ * <p>
+ * Every repository has an initial and a maximum number of concurrent connections, which are used by the adaptive limit of its host (see {@link network.HostBulkhead}).
  */
 public enum MavenComponentRepositoryType implements RepositoryType {
-    Central("https://repo1.maven.org/maven2/"),
-    Google("https://maven.google.com/"),
+    Central("https://repo1.maven.org/maven2/", 8, 64),
+    Google("https://maven.google.com/", 8, 32),
     Atlassian("https://packages.atlassian.com/mvn/maven-atlassian-external/"),
     Hortonworks("https://repo.hortonworks.com/content/repositories/releases/"),
     JCenter("https://jcenter.bintray.com/"),
@@ -26,9 +28,17 @@ public enum MavenComponentRepositoryType implements RepositoryType {
     ROOT("ROOT"); // root of the application
 
     private final String url;
+    private final int initialConnections;
+    private final int maxConnections;
 
     MavenComponentRepositoryType(String url) {
+        this(url, 2, 8);
+    }
+
+    MavenComponentRepositoryType(String url, int initialConnections, int maxConnections) {
         this.url = url;
+        this.initialConnections = initialConnections;
+        this.maxConnections = maxConnections;
     }
 
     @Override
@@ -40,4 +50,18 @@ public enum MavenComponentRepositoryType implements RepositoryType {
     public String getName() {
         return this.name();
     }
+
+    /**
+     * @return the number of concurrent connections to start with
+     */
+    public int getInitialConnections() {
+        return initialConnections;
+    }
+
+    /**
+     * @return the maximum number of concurrent connections
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
 }
@@ -14,6 +14,7 @@ import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 public class Logger {
@@ -25,6 +26,7 @@ public class Logger {
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss:SSS");
     private static LogLevel level = LogLevel.INFO;
     private static final OutputStream logFile ;
+    private static final ReentrantLock logFileLock = new ReentrantLock();
 
     private static ExecutionServiceLogger executeServiceLogger;
 
@@ -152,15 +154,16 @@ public class Logger {
 
         if (logFile == null) return;
 
-        synchronized (logFile) {
-            try {
-                for (byte aByte : (getPrefix(level, false) + msg + "\n").getBytes(StandardCharsets.UTF_8)) {
-                    logFile.write(aByte);
-                }
-                logFile.flush();
-            } catch (IOException e) {
-                System.err.println("Error writing to log file: " + e.getMessage());
+        logFileLock.lock();
+        try {
+            for (byte aByte : (getPrefix(level, false) + msg + "\n").getBytes(StandardCharsets.UTF_8)) {
+                logFile.write(aByte);
             }
+            logFile.flush();
+        } catch (IOException e) {
+            System.err.println("Error writing to log file: " + e.getMessage());
+        } finally {
+            logFileLock.unlock();
         }
     }
 
@@ -0,0 +1,100 @@
+package network;
+
+import settings.Settings;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of open connections of the whole application and per host.
+ * <p>
+ * The global limit is independent of the number of crawl threads, so that many crawl tasks (e.g. on virtual threads) can wait for data without opening an unbounded number of connections.
+ * It is read from {@link Settings#maxConnections} on first use.
+ * Connections are opened by the {@link HttpTransport}. Additionally, every connection has to pass the {@link HostBulkhead} of its host, so a slow host cannot use up all connections.
+ */
+public class ConnectionLimiter {
+    private static volatile ConnectionLimiter instance;
+
+    private final Semaphore permits;
+    private final AtomicLong requests = new AtomicLong();
+
+    private ConnectionLimiter(int maxConnections) {
+        this.permits = new Semaphore(maxConnections, true);
+    }
+
+    public static ConnectionLimiter getInstance() {
+        if (instance == null) {
+            synchronized (ConnectionLimiter.class) {
+                if (instance == null) instance = new ConnectionLimiter(Settings.maxConnections);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Blocks until a connection to the given host may be opened.
+     * The host bulkhead is acquired first, so no global connection is held while waiting for a slow host.
+     * The returned permit has to be closed when the connection is not used anymore.
+     *
+     * @param host the host
+     * @return the permit
+     * @throws InterruptedIOException if the thread was interrupted while waiting
+     */
+    public Permit acquire(String host) throws InterruptedIOException {
+        var bulkhead = HostBulkhead.of(host);
+        bulkhead.acquire();
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            bulkhead.cancel();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a free connection.");
+        }
+        requests.incrementAndGet();
+        return new Permit(bulkhead);
+    }
+
+    /**
+     * @return the number of connections that were opened so far
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return the number of connections that are currently open
+     */
+    public int getOpenConnections() {
+        return Settings.maxConnections - permits.availablePermits();
+    }
+
+    /**
+     * A permit for one connection. Releases the global and the host limit when closed.
+     */
+    public class Permit implements AutoCloseable {
+        private final HostBulkhead bulkhead;
+        private final long start = System.currentTimeMillis();
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        private volatile boolean success = true;
+
+        private Permit(HostBulkhead bulkhead) {
+            this.bulkhead = bulkhead;
+        }
+
+        /**
+         * Marks the request as failed, which lowers the connection limit of the host.
+         */
+        public void failed() {
+            this.success = false;
+        }
+
+        @Override
+        public void close() {
+            if (!released.compareAndSet(false, true)) return;
+            permits.release();
+            bulkhead.release(System.currentTimeMillis() - start, success);
+        }
+    }
+}
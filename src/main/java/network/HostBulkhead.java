@@ -0,0 +1,216 @@
+package network;
+
+import enums.MavenComponentRepositoryType;
+import settings.Settings;
+
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the concurrent connections to a single host.
+ * <p>
+ * The limit adapts to the host with an additive increase / multiplicative decrease scheme:
+ * every fast response increases the limit by 1/limit (about one connection per round trip),
+ * a response that is much slower than the average latency of the host decreases it slightly,
+ * and a failed request halves it. The limit always stays between the initial and the maximum number of connections of the host.
+ * <p>
+ * The limits are configured per {@link MavenComponentRepositoryType} and can be overwritten with {@link Settings#repositoryConnectionLimits}.
+ * Hosts that do not belong to a maven repository type use the default limits.
+ */
+public class HostBulkhead {
+    private static final Map<String, HostBulkhead> bulkheads = new ConcurrentHashMap<>();
+    private static final int defaultInitialConnections = 4;
+    private static final int defaultMaxConnections = 16;
+    // a response slower than this multiple of the average latency counts as an overload signal
+    private static final double latencyTolerance = 2.0;
+    private static final double latencySmoothing = 0.05;
+
+    private final String host;
+    private final int minLimit;
+    private final int maxLimit;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitAvailable = lock.newCondition();
+
+    private double limit;
+    private double averageLatency = -1;
+    private int inFlight = 0;
+    private int waiting = 0;
+    private int peakInFlight = 0;
+    private int peakWaiting = 0;
+    private long requests = 0;
+    private long failures = 0;
+
+    private HostBulkhead(String host, int initialLimit, int maxLimit) {
+        this.host = host;
+        this.minLimit = Math.max(1, Math.min(initialLimit, maxLimit));
+        this.maxLimit = Math.max(1, maxLimit);
+        this.limit = this.minLimit;
+    }
+
+    /**
+     * Returns the bulkhead of the host of the given uri.
+     *
+     * @param uri the uri
+     * @return the bulkhead
+     */
+    public static HostBulkhead of(URI uri) {
+        return of(uri.getHost());
+    }
+
+    /**
+     * Returns the bulkhead of the given host.
+     *
+     * @param host the host
+     * @return the bulkhead
+     */
+    public static HostBulkhead of(String host) {
+        return bulkheads.computeIfAbsent(host == null ? "" : host.toLowerCase(), HostBulkhead::create);
+    }
+
+    /**
+     * @return all bulkheads that were used so far, sorted by host
+     */
+    public static List<HostBulkhead> getAll() {
+        return bulkheads.values().stream().sorted(Comparator.comparing(HostBulkhead::getHost)).toList();
+    }
+
+    private static HostBulkhead create(String host) {
+        for (var type : MavenComponentRepositoryType.values()) {
+            var url = type.getUrl();
+            if (!url.startsWith("http")) continue;
+            if (!host.equals(URI.create(url).getHost())) continue;
+
+            var maxConnections = Settings.repositoryConnectionLimits.getOrDefault(type.getName(), type.getMaxConnections());
+            return new HostBulkhead(host, Math.min(type.getInitialConnections(), maxConnections), maxConnections);
+        }
+        return new HostBulkhead(host, defaultInitialConnections, defaultMaxConnections);
+    }
+
+    /**
+     * Blocks until a connection to the host may be opened.
+     * Every call has to be followed by a call to {@link #release(long, boolean)}.
+     *
+     * @throws InterruptedIOException if the thread was interrupted while waiting
+     */
+    public void acquire() throws InterruptedIOException {
+        lock.lock();
+        try {
+            waiting++;
+            peakWaiting = Math.max(peakWaiting, waiting);
+            try {
+                while (inFlight >= (int) limit) {
+                    permitAvailable.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a connection to " + host + ".");
+            } finally {
+                waiting--;
+            }
+            inFlight++;
+            peakInFlight = Math.max(peakInFlight, inFlight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a connection and adapts the limit.
+     *
+     * @param latency the time the connection was used in milliseconds
+     * @param success false if the request failed because of the host (e.g. a timeout or a server error)
+     */
+    public void release(long latency, boolean success) {
+        lock.lock();
+        try {
+            inFlight--;
+            requests++;
+
+            if (!success) {
+                failures++;
+                limit = Math.max(minLimit, limit / 2);
+            } else if (averageLatency >= 0 && latency > averageLatency * latencyTolerance) {
+                limit = Math.max(minLimit, limit * 0.9);
+            } else {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+
+            if (success) {
+                averageLatency = averageLatency < 0 ? latency : averageLatency + latencySmoothing * (latency - averageLatency);
+            }
+
+            permitAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a connection that was never used, without adapting the limit.
+     */
+    public void cancel() {
+        lock.lock();
+        try {
+            inFlight--;
+            permitAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * @return the number of connections that are currently open to the host
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of requests that are currently waiting for a connection to the host
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the current connection limit of the host
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return host + " [in flight: " + inFlight + " (peak " + peakInFlight + "), queued: " + waiting + " (peak " + peakWaiting + "), limit: " + (int) limit + "/" + maxLimit + ", requests: " + requests + ", failures: " + failures + ", avg latency: " + Math.round(Math.max(0, averageLatency)) + "ms]";
+        } finally {
+            lock.unlock();
+        }
+    }
+}
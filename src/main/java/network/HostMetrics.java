@@ -0,0 +1,62 @@
+package network;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the requests, transferred bytes and latency of the requests to a single host.
+ */
+public class HostMetrics {
+    private final String host;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+
+    HostMetrics(String host) {
+        this.host = host;
+    }
+
+    void addBytes(long count) {
+        bytes.add(count);
+    }
+
+    /**
+     * @param latencyNanos the time from sending the request until the response was read completely
+     * @param success      false if the request failed
+     */
+    void complete(long latencyNanos, boolean success) {
+        requests.increment();
+        this.latencyNanos.add(latencyNanos);
+        if (!success) failures.increment();
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * @return the average latency in milliseconds
+     */
+    public long getAverageLatency() {
+        var count = requests.sum();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(latencyNanos.sum() / count);
+    }
+
+    @Override
+    public String toString() {
+        return host + " [requests: " + getRequests() + ", failures: " + getFailures() + ", received: " + getBytes() / 1024 + "KB, avg latency: " + getAverageLatency() + "ms]";
+    }
+}
@@ -0,0 +1,250 @@
+package network;
+
+import settings.Settings;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The HTTP client used for all downloads.
+ * <p>
+ * One shared {@link HttpClient} keeps the connections to each host alive and multiplexes requests over HTTP/2 if the host supports it.
+ * Every request passes the {@link ConnectionLimiter}, asks for gzip compression and uses the timeouts from {@link Settings#connectTimeout} and {@link Settings#requestTimeout}.
+ * Requests, received bytes and latency are counted per host (see {@link #getMetrics()}).
+ */
+public class HttpTransport {
+    private static volatile HttpTransport instance;
+
+    private final HttpClient client;
+    private final Map<String, HostMetrics> metrics = new ConcurrentHashMap<>();
+
+    private HttpTransport() {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(Settings.connectTimeout))
+                .build();
+    }
+
+    public static HttpTransport getInstance() {
+        if (instance == null) {
+            synchronized (HttpTransport.class) {
+                if (instance == null) instance = new HttpTransport();
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * A response with the complete (decompressed) body.
+     */
+    public record Response(int statusCode, HttpHeaders headers, byte[] body) {
+        public String bodyAsString() {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * @param uri the uri
+     * @return a request builder for the uri with the default timeout and headers
+     */
+    public HttpRequest.Builder newRequest(URI uri) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(Settings.requestTimeout))
+                .header("Accept-Encoding", "gzip");
+    }
+
+    /**
+     * Downloads the given uri. The connection counts against the connection limits until the stream is closed.
+     *
+     * @param uri the uri
+     * @return the body of the response
+     * @throws FileNotFoundException if the server answered with 404
+     * @throws IOException           if the request failed or the server answered with another error
+     */
+    public InputStream get(URI uri) throws IOException {
+        var host = uri.getHost();
+        var permit = ConnectionLimiter.getInstance().acquire(host);
+        var hostMetrics = getMetrics(host);
+        var start = System.nanoTime();
+
+        HttpResponse<InputStream> response;
+        try {
+            response = client.send(newRequest(uri).GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            complete(permit, hostMetrics, start, false);
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            complete(permit, hostMetrics, start, false);
+            throw new InterruptedIOException("Interrupted while requesting " + uri);
+        }
+
+        var status = response.statusCode();
+        if (status < 200 || status >= 300) {
+            response.body().close();
+            // a missing file is a normal answer of the host
+            complete(permit, hostMetrics, start, status < 500);
+            if (status == 404) throw new FileNotFoundException(uri.toString());
+            throw new IOException("Unexpected status " + status + " for " + uri);
+        }
+
+        var body = new MeasuredInputStream(response.body(), permit, hostMetrics, start);
+        if (!isGzip(response.headers())) return body;
+        try {
+            // reads the gzip header, the permit has to be released if it is invalid or the connection breaks
+            return new GZIPInputStream(body);
+        } catch (IOException | RuntimeException e) {
+            body.success = false;
+            try {
+                body.close();
+            } catch (IOException closeException) {
+                e.addSuppressed(closeException);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Downloads the given uri completely.
+     *
+     * @see #get(URI)
+     */
+    public byte[] getBytes(URI uri) throws IOException {
+        try (var inputStream = get(uri)) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    /**
+     * Downloads the given uri completely as UTF-8 text.
+     *
+     * @see #get(URI)
+     */
+    public String getString(URI uri) throws IOException {
+        return new String(getBytes(uri), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Sends the given request and reads the whole response, regardless of its status code.
+     * Use {@link #newRequest(URI)} to create the request.
+     *
+     * @param request the request
+     * @return the response
+     * @throws IOException if the request failed
+     */
+    public Response send(HttpRequest request) throws IOException {
+        var host = request.uri().getHost();
+        var permit = ConnectionLimiter.getInstance().acquire(host);
+        var hostMetrics = getMetrics(host);
+        var start = System.nanoTime();
+        var success = false;
+        try {
+            var response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            hostMetrics.addBytes(response.body().length);
+            var body = response.body();
+            if (isGzip(response.headers())) {
+                try (var inputStream = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                    body = inputStream.readAllBytes();
+                }
+            }
+            success = response.statusCode() < 500;
+            return new Response(response.statusCode(), response.headers(), body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while requesting " + request.uri());
+        } finally {
+            complete(permit, hostMetrics, start, success);
+        }
+    }
+
+    /**
+     * @return the metrics of all hosts that were requested so far, sorted by host
+     */
+    public List<HostMetrics> getMetrics() {
+        return metrics.values().stream().sorted(Comparator.comparing(HostMetrics::getHost)).toList();
+    }
+
+    private HostMetrics getMetrics(String host) {
+        return metrics.computeIfAbsent(host == null ? "" : host, HostMetrics::new);
+    }
+
+    private static boolean isGzip(HttpHeaders headers) {
+        return headers.firstValue("Content-Encoding").map(it -> it.equalsIgnoreCase("gzip")).orElse(false);
+    }
+
+    private static void complete(ConnectionLimiter.Permit permit, HostMetrics hostMetrics, long start, boolean success) {
+        if (!success) permit.failed();
+        permit.close();
+        hostMetrics.complete(System.nanoTime() - start, success);
+    }
+
+    /**
+     * Counts the received bytes and releases the connection permit when it is closed.
+     */
+    private static class MeasuredInputStream extends FilterInputStream {
+        private final ConnectionLimiter.Permit permit;
+        private final HostMetrics hostMetrics;
+        private final long start;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+        private volatile boolean success = true;
+
+        MeasuredInputStream(InputStream in, ConnectionLimiter.Permit permit, HostMetrics hostMetrics, long start) {
+            super(in);
+            this.permit = permit;
+            this.hostMetrics = hostMetrics;
+            this.start = start;
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                var value = super.read();
+                if (value >= 0) hostMetrics.addBytes(1);
+                return value;
+            } catch (IOException e) {
+                success = false;
+                throw e;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                var count = super.read(b, off, len);
+                if (count > 0) hostMetrics.addBytes(count);
+                return count;
+            } catch (IOException e) {
+                success = false;
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed.compareAndSet(false, true)) return;
+            try {
+                super.close();
+            } finally {
+                complete(permit, hostMetrics, start, success);
+            }
+        }
+    }
+}
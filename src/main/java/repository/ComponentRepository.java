@@ -46,7 +46,7 @@ public interface ComponentRepository {
     /**
      * Returns a component from the repository if it exists. Otherwise, returns null.
      * Returns the component with the highest version if multiple components with group and artifact id exist.
-     * Needs to be synchronized!
+     * Needs to be thread safe!
      *
      * @param groupId    the group id. Can be null depending on the component type
      * @param artifactId the artifact id
@@ -29,4 +29,9 @@ public interface LicenseRepository {
      */
     LicenseChoice getLicenseChoice(String licenseString, String url, String componentName);
 
+    /**
+     * Returns how many license strings were parsed and how many were answered from earlier results.
+     */
+    String getStatistics();
+
 }
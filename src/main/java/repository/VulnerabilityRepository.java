@@ -4,6 +4,7 @@ import data.Component;
 import data.Vulnerability;
 import repository.repositoryImpl.VulnerabilityRepositoryImpl;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface VulnerabilityRepository {
@@ -13,8 +14,27 @@ public interface VulnerabilityRepository {
 
     List<Vulnerability> getVulnerabilities(Component component);
 
+    /**
+     * Resolves the vulnerabilities of all given components with as few requests as possible, so {@link #getVulnerabilities(Component)} does not need to send a request for them.
+     * Components whose vulnerabilities could not be loaded are queried one by one when they are requested.
+     *
+     * @param components the components
+     */
+    void loadVulnerabilities(Collection<? extends Component> components);
+
     void updateVulnerabilities(Component component);
 
+    /**
+     * Brings the vulnerabilities of components read from a document (e.g. a VEX file) up to date, with as few requests as possible.
+     * Only the ids and modified timestamps of the vulnerabilities are queried for all components. Vulnerabilities that are new or were modified after their own modified timestamp in the document are loaded and replace the read ones,
+     * vulnerabilities that do not affect a component anymore are removed and all others are kept as they were read.
+     * A vulnerability without a modified timestamp is always loaded again.
+     *
+     * @param components the components
+     * @param replaceAll true to load and replace all vulnerabilities
+     */
+    void refreshVulnerabilities(Collection<? extends Component> components, boolean replaceAll);
+
     void addReadVulnerability(Vulnerability vulnerability);
 
     List<Vulnerability> getReadVulnerabilities();
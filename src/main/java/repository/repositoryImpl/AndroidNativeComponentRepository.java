@@ -6,6 +6,7 @@ import data.LicenseChoice;
 import data.Version;
 import data.internalData.AndroidNativeComponent;
 import logger.Logger;
+import network.HttpTransport;
 import repository.ComponentRepository;
 import repository.LicenseRepository;
 import service.VersionResolver;
@@ -16,16 +17,13 @@ import java.io.InputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.TreeSet;
 
 public class AndroidNativeComponentRepository implements ComponentRepository {
     private static final Logger logger = Logger.of("AndroidN_Repository");
     private static final AndroidNativeComponentRepository instance = new AndroidNativeComponentRepository();
     private static final String baseUrl = "https://android.googlesource.com/";
-    HashMap<String, TreeSet<Component>> components = new HashMap<>();
+    private final ComponentIndex components = new ComponentIndex();
 
     private AndroidNativeComponentRepository() {
     }
@@ -61,7 +59,7 @@ public class AndroidNativeComponentRepository implements ComponentRepository {
     }
 
     private List<String> loadOwners(String url) {
-        try (InputStream in = URI.create(url).toURL().openStream()) {
+        try (InputStream in = HttpTransport.getInstance().get(URI.create(url))) {
             byte[] base64Bytes = in.readAllBytes();
             byte[] decodedBytes = Base64.getDecoder().decode(base64Bytes);
             String decodedContent = new String(decodedBytes, StandardCharsets.UTF_8);
@@ -76,7 +74,7 @@ public class AndroidNativeComponentRepository implements ComponentRepository {
     }
 
     private LicenseChoice loadLicense(String url, Component component) {
-        try (InputStream in = URI.create(url).toURL().openStream()) {
+        try (InputStream in = HttpTransport.getInstance().get(URI.create(url))) {
             byte[] base64Bytes = in.readAllBytes();
             byte[] decodedBytes = Base64.getDecoder().decode(base64Bytes);
             String decodedContent = new String(decodedBytes, StandardCharsets.UTF_8);
@@ -90,18 +88,8 @@ public class AndroidNativeComponentRepository implements ComponentRepository {
     }
 
     @Override
-    public synchronized Component getComponent(@Nullable String groupId, String artifactId, Version version, Component parent) {
-        var key = groupId + ":" + artifactId;
-
-        if (components.containsKey(key)) {
-            var available = components.get(key).stream().filter(it -> it.getVersion().equals(version)).findFirst();
-            if (available.isPresent())
-                return available.get();
-        }
-
-        var newComponent = new AndroidNativeComponent(groupId, artifactId, version);
-        components.computeIfAbsent(key, k -> new TreeSet<>(Comparator.comparing(Component::getVersion))).add(newComponent);
-        return newComponent;
+    public Component getComponent(@Nullable String groupId, String artifactId, Version version, Component parent) {
+        return components.getOrCreate(groupId, artifactId, version, () -> new AndroidNativeComponent(groupId, artifactId, version));
     }
 
     @Override
@@ -116,6 +104,6 @@ public class AndroidNativeComponentRepository implements ComponentRepository {
 
     @Override
     public List<Component> getLoadedComponents() {
-        return this.components.values().stream().flatMap(TreeSet::stream).toList();
+        return this.components.getAll();
     }
 }
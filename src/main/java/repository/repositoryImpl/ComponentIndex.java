@@ -0,0 +1,62 @@
+package repository.repositoryImpl;
+
+import data.Component;
+import data.Version;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The components of a repository, indexed by groupId and artifactId and then by version.
+ * <p>
+ * Thread safe without a global lock: every component is created at most once, even if several threads ask for the same coordinates at the same time.
+ */
+public class ComponentIndex {
+    private final Map<Key, Map<Version, Component>> components = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the component with the given coordinates. Creates it with the given factory if it does not exist yet.
+     * The factory must not access this index.
+     *
+     * @param groupId    the groupId, can be null for repositories without groups
+     * @param artifactId the artifactId
+     * @param version    the version
+     * @param factory    creates the component if it does not exist
+     * @return the component
+     */
+    public Component getOrCreate(String groupId, String artifactId, Version version, Supplier<? extends Component> factory) {
+        return components
+                .computeIfAbsent(new Key(groupId, artifactId), key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(version, key -> factory.get());
+    }
+
+    /**
+     * @param groupId    the groupId, can be null for repositories without groups
+     * @param artifactId the artifactId
+     * @return all versions of the given artifact, sorted by version
+     */
+    public List<Component> get(String groupId, String artifactId) {
+        var versions = components.get(new Key(groupId, artifactId));
+        if (versions == null) return List.of();
+        // versions are not totally ordered (the comparison stops at the first qualifier), so a sort could reject them. a tree map never does.
+        var sorted = new TreeMap<Version, List<Component>>();
+        for (var component : versions.values()) {
+            sorted.computeIfAbsent(component.getVersion(), key -> new ArrayList<>()).add(component);
+        }
+        return sorted.values().stream().flatMap(List::stream).toList();
+    }
+
+    /**
+     * @return all components
+     */
+    public List<Component> getAll() {
+        return components.values().stream().flatMap(it -> it.values().stream()).toList();
+    }
+
+    private record Key(String groupId, String artifactId) {
+    }
+}
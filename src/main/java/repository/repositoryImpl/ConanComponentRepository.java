@@ -1,5 +1,6 @@
 package repository.repositoryImpl;
 
+import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 import data.Component;
 import data.Dependency;
@@ -7,6 +8,7 @@ import data.Version;
 import data.internalData.ConanComponent;
 import exceptions.ArtifactBuilderException;
 import logger.Logger;
+import network.HttpTransport;
 import repository.ComponentRepository;
 import service.VersionResolver;
 
@@ -15,15 +17,12 @@ import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.TreeSet;
 
 public class ConanComponentRepository implements ComponentRepository {
     private static final Logger logger = Logger.of("ConanRepository");
     private static final ConanComponentRepository instance = new ConanComponentRepository();
-    HashMap<String, TreeSet<Component>> components = new HashMap<>();
+    private final ComponentIndex components = new ComponentIndex();
 
     private ConanComponentRepository() {
     }
@@ -49,22 +48,26 @@ public class ConanComponentRepository implements ComponentRepository {
             logger.info("Loading conan component: " + component.getQualifiedName());
 
             //get build id
-            var buildUrl = URI.create("https://conan.io/center").toURL();
-            var reader = new BufferedReader(new InputStreamReader(buildUrl.openStream()));
-            var line = "";
+            var buildUrl = URI.create("https://conan.io/center");
             var buildId = "";
-            while ((line = reader.readLine()) != null) {
-                if (line.contains("buildId")) {
-                    buildId = line.substring(line.indexOf("buildId") + 10);
-                    buildId = buildId.substring(0, buildId.indexOf("\""));
-                    break;
+            try (var reader = new BufferedReader(new InputStreamReader(HttpTransport.getInstance().get(buildUrl)))) {
+                var line = "";
+                while ((line = reader.readLine()) != null) {
+                    if (line.contains("buildId")) {
+                        buildId = line.substring(line.indexOf("buildId") + 10);
+                        buildId = buildId.substring(0, buildId.indexOf("\""));
+                        break;
+                    }
                 }
             }
 
 
-            var url = URI.create("https://conan.io/_next/data/" + buildId + "/center/recipes/" + component.getArtifactId() + ".json?version=" + component.getVersion().version()).toURL();
+            var url = URI.create("https://conan.io/_next/data/" + buildId + "/center/recipes/" + component.getArtifactId() + ".json?version=" + component.getVersion().version());
 
-            var data = JsonParser.parseReader(new InputStreamReader(url.openStream()));
+            JsonElement data;
+            try (var reader = new InputStreamReader(HttpTransport.getInstance().get(url))) {
+                data = JsonParser.parseReader(reader);
+            }
 
             if (data.isJsonNull()) throw new ArtifactBuilderException("Cannot find artifact at " + url);
             var possibleArtifacts = data.getAsJsonObject().get("pageProps").getAsJsonObject().get("data").getAsJsonObject();
@@ -95,15 +98,8 @@ public class ConanComponentRepository implements ComponentRepository {
     }
 
     @Override
-    public synchronized Component getComponent(@Nullable String ignored, String name, Version version, Component parent) {
-        if (components.containsKey(name)) {
-            var available = components.get(name).stream().filter(it -> it.getVersion().equals(version)).findFirst();
-            if (available.isPresent()) return available.get();
-        }
-        var newComponent = new ConanComponent(name, version);
-
-        components.computeIfAbsent(name, k -> new TreeSet<>(Comparator.comparing(Component::getVersion))).add(newComponent);
-        return newComponent;
+    public Component getComponent(@Nullable String ignored, String name, Version version, Component parent) {
+        return components.getOrCreate(null, name, version, () -> new ConanComponent(name, version));
     }
 
     @Override
@@ -113,12 +109,11 @@ public class ConanComponentRepository implements ComponentRepository {
 
     @Override
     public List<Component> getLoadedComponents(String groupName, String artifactName) {
-        if (!components.containsKey(artifactName)) return new ArrayList<>();
-        return new ArrayList<>(components.get(artifactName));
+        return new ArrayList<>(components.get(null, artifactName));
     }
 
     @Override
     public List<Component> getLoadedComponents() {
-        return this.components.values().stream().flatMap(TreeSet::stream).toList();
+        return this.components.getAll();
     }
 }
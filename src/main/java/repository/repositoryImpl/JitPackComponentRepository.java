@@ -5,6 +5,7 @@ import data.Dependency;
 import data.Version;
 import data.internalData.JitPackComponent;
 import logger.Logger;
+import network.HttpTransport;
 import repository.ComponentRepository;
 import repository.LicenseRepository;
 import service.VersionResolver;
@@ -16,10 +17,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.TreeSet;
 import java.util.zip.ZipFile;
 
 public class JitPackComponentRepository implements ComponentRepository {
@@ -27,7 +25,7 @@ public class JitPackComponentRepository implements ComponentRepository {
     private static final String baseurl = "https://github.com/";
     private static final File tempZipFolder = new File(Settings.getDataFolder() + "/jitpack/");
     private static final JitPackComponentRepository instance = new JitPackComponentRepository();
-    HashMap<String, TreeSet<Component>> components = new HashMap<>();
+    private final ComponentIndex components = new ComponentIndex();
 
     private JitPackComponentRepository() {
     }
@@ -88,7 +86,7 @@ public class JitPackComponentRepository implements ComponentRepository {
             group = group.substring(10);
         }
 
-        try (InputStream in = URI.create(baseurl + group + "/" + component.getArtifactId() + "/archive/refs/tags/" + component.getVersion().version() + ".zip").toURL().openStream();
+        try (InputStream in = HttpTransport.getInstance().get(URI.create(baseurl + group + "/" + component.getArtifactId() + "/archive/refs/tags/" + component.getVersion().version() + ".zip"));
              FileOutputStream zipOutStream = new FileOutputStream(zipFile)) {
             byte[] dataBuffer = new byte[1024];
             int bytesRead;
@@ -104,19 +102,8 @@ public class JitPackComponentRepository implements ComponentRepository {
     }
 
     @Override
-    public synchronized Component getComponent(@Nullable String groupId, String artifactId, Version version, Component parent) {
-        var key = groupId + ":" + artifactId;
-
-        if (components.containsKey(key)) {
-            var available = components.get(key).stream().filter(it -> it.getVersion().equals(version)).findFirst();
-            if (available.isPresent())
-                return available.get();
-        }
-
-        var newComponent = new JitPackComponent(groupId, artifactId, version);
-
-        components.computeIfAbsent(key, k -> new TreeSet<>(Comparator.comparing(Component::getVersion))).add(newComponent);
-        return newComponent;
+    public Component getComponent(@Nullable String groupId, String artifactId, Version version, Component parent) {
+        return components.getOrCreate(groupId, artifactId, version, () -> new JitPackComponent(groupId, artifactId, version));
     }
 
     @Override
@@ -131,6 +118,6 @@ public class JitPackComponentRepository implements ComponentRepository {
 
     @Override
     public List<Component> getLoadedComponents() {
-        return this.components.values().stream().flatMap(TreeSet::stream).toList();
+        return this.components.getAll();
     }
 }
@@ -0,0 +1,299 @@
+package repository.repositoryImpl;
+
+import data.License;
+import data.internalData.SPDXLicense;
+import logger.Logger;
+import util.AtomicFiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Recognizes license texts (e.g. LICENSE files) by comparing them with the texts of the SPDX licenses.
+ * <p>
+ * A text is normalized along the SPDX matching guidelines: case, punctuation, quotes, bullets and whitespace are ignored, copyright lines are removed
+ * and some equivalent spellings are unified. The words are then hashed into shingles of {@link #shingleSize} words with a rolling hash,
+ * and the fingerprint of the text is the set of the {@link #sketchSize} smallest shingle hashes (a bottom-k MinHash sketch).
+ * The similarity of two texts is estimated from their fingerprints, as the share of the smallest hashes of both that is part of both (the Jaccard index of the shingles).
+ * <p>
+ * The fingerprints of all SPDX licenses are computed once and saved in the data folder. They are computed again if the license list changes.
+ */
+public class LicenseFingerprintIndex {
+    private static final Logger logger = Logger.of("LicenseFingerprint");
+    private static final int magic = 0x4C465049;
+    private static final int formatVersion = 1;
+    static final int shingleSize = 5;
+    static final int sketchSize = 128;
+    // the minimal similarity of a text and a license text to be a match
+    static final double threshold = 0.7;
+    // licenses whose similarity differs by less than this from the best one are as good a match, e.g. GPL-2.0-only and GPL-2.0-or-later have the same text
+    static final double tieEpsilon = 0.02;
+    private static final long base = 0x100000001B3L;
+
+    private static final Pattern copyrightLine = Pattern.compile("(?im)^\\s*(copyright|\\(c\\)|©|all rights reserved).*$");
+    private static final Pattern notWord = Pattern.compile("[^\\p{L}\\p{N}]+");
+    // a part of the equivalent words of the SPDX matching guidelines, mapped to one spelling
+    private static final Map<String, String> equivalentWords = Map.of(
+            "licence", "license",
+            "licences", "licenses",
+            "licenced", "licensed",
+            "sublicence", "sublicense",
+            "acknowledgment", "acknowledgement",
+            "analogue", "analog",
+            "percent", "per cent",
+            "noncommercial", "non commercial"
+    );
+
+    /**
+     * @param id    the id of the best matching license
+     * @param score the estimated similarity of the text and the license text, between 0 and 1
+     * @param ties  the ids of all licenses that match as well as the best one (within {@link #tieEpsilon}), including the id, sorted
+     */
+    public record Match(String id, double score, List<String> ties) {
+        /**
+         * @return true if the text matches several license texts equally well, so the text alone does not identify the license
+         */
+        public boolean isAmbiguous() {
+            return ties.size() > 1;
+        }
+    }
+
+    // sorted by id, so the result does not depend on the order of the license table
+    private final String[] ids;
+    private final long[][] sketches;
+
+    private LicenseFingerprintIndex(String[] ids, long[][] sketches) {
+        this.ids = ids;
+        this.sketches = sketches;
+    }
+
+    /**
+     * Loads the fingerprints from the file, or computes them from the license texts and saves them if the file is missing or outdated.
+     * The license texts are only read if the fingerprints are computed.
+     *
+     * @param file               the file in the data folder, can be null
+     * @param licenses           id -> license
+     * @param licenseListVersion the version of the license list the licenses are from
+     */
+    public static LicenseFingerprintIndex load(Path file, Map<String, License> licenses, String licenseListVersion) {
+        var fingerprinted = new TreeMap<String, License>();
+        licenses.forEach((id, license) -> {
+            // deprecated ids have the same text as their replacement
+            if (license instanceof SPDXLicense spdxLicense && spdxLicense.isDeprecated()) return;
+            fingerprinted.put(id, license);
+        });
+        var checksum = checksum(licenseListVersion, fingerprinted.keySet());
+
+        if (file != null && Files.exists(file)) {
+            try {
+                var index = read(file, checksum);
+                if (index != null) return index;
+            } catch (IOException e) {
+                logger.error("Could not read license fingerprints " + file + ". " + e);
+            }
+        }
+
+        var start = System.currentTimeMillis();
+        var ids = new ArrayList<String>();
+        var sketches = new ArrayList<long[]>();
+        fingerprinted.forEach((id, license) -> {
+            var text = license.text();
+            if (text == null || text.isBlank()) return;
+            ids.add(id);
+            sketches.add(sketch(text));
+        });
+        var index = new LicenseFingerprintIndex(ids.toArray(new String[0]), sketches.toArray(new long[0][]));
+        logger.info("Computed fingerprints of " + ids.size() + " license texts (" + (System.currentTimeMillis() - start) + "ms)");
+
+        if (file != null) {
+            try {
+                index.write(file, checksum);
+            } catch (IOException e) {
+                logger.error("Could not save license fingerprints " + file + ". " + e);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @param text a license text
+     * @return the most similar license if the similarity is at least {@link #threshold}, otherwise null.
+     * If several licenses are about as similar, the match is {@link Match#isAmbiguous() ambiguous}.
+     */
+    public Match find(String text) {
+        var sketch = sketch(text);
+        if (sketch.length == 0) return null;
+
+        var scores = new double[ids.length];
+        var best = -1;
+        for (int i = 0; i < ids.length; i++) {
+            scores[i] = similarity(sketch, sketches[i]);
+            if (scores[i] >= threshold && (best == -1 || scores[i] > scores[best])) best = i;
+        }
+        if (best == -1) return null;
+
+        var ties = new ArrayList<String>();
+        for (int i = 0; i < ids.length; i++) {
+            if (scores[i] >= threshold && scores[best] - scores[i] < tieEpsilon) ties.add(ids[i]);
+        }
+        return new Match(ids[best], scores[best], List.copyOf(ties));
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Normalizes a text along the SPDX matching guidelines.
+     *
+     * @return the words of the text
+     */
+    static List<String> normalize(String text) {
+        var normalized = copyrightLine.matcher(text).replaceAll(" ").toLowerCase(Locale.ROOT);
+        var words = new ArrayList<String>();
+        for (var word : notWord.split(normalized)) {
+            if (word.isEmpty()) continue;
+            var equivalent = equivalentWords.get(word);
+            if (equivalent == null) {
+                words.add(word);
+            } else {
+                words.addAll(Arrays.asList(equivalent.split(" ")));
+            }
+        }
+        return words;
+    }
+
+    /**
+     * @return the {@link #sketchSize} smallest hashes of the shingles of the text, sorted
+     */
+    static long[] sketch(String text) {
+        var words = normalize(text);
+        if (words.isEmpty()) return new long[0];
+        if (words.size() < shingleSize) return new long[]{mix(hashWords(words))};
+
+        // base^shingleSize, to remove the first word of the window from the rolling hash
+        var power = 1L;
+        for (int i = 0; i < shingleSize; i++) power *= base;
+
+        var wordHashes = new long[words.size()];
+        for (int i = 0; i < wordHashes.length; i++) wordHashes[i] = hashWord(words.get(i));
+
+        var hashes = new long[words.size() - shingleSize + 1];
+        var hash = 0L;
+        for (int i = 0; i < wordHashes.length; i++) {
+            hash = hash * base + wordHashes[i];
+            if (i >= shingleSize) hash -= power * wordHashes[i - shingleSize];
+            if (i >= shingleSize - 1) hashes[i - shingleSize + 1] = mix(hash);
+        }
+
+        Arrays.sort(hashes);
+        var sketch = new long[Math.min(sketchSize, hashes.length)];
+        var size = 0;
+        for (int i = 0; i < hashes.length && size < sketch.length; i++) {
+            if (i == 0 || hashes[i] != hashes[i - 1]) sketch[size++] = hashes[i];
+        }
+        return Arrays.copyOf(sketch, size);
+    }
+
+    /**
+     * Estimates the Jaccard index of the shingles of two texts: of the k smallest hashes of both sketches, the share that is in both sketches.
+     */
+    static double similarity(long[] a, long[] b) {
+        if (a.length == 0 || b.length == 0) return 0;
+        var k = Math.min(sketchSize, Math.max(a.length, b.length));
+        int i = 0, j = 0, taken = 0, shared = 0;
+        while (taken < k && (i < a.length || j < b.length)) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                i++;
+            } else if (i == a.length || b[j] < a[i]) {
+                j++;
+            } else {
+                shared++;
+                i++;
+                j++;
+            }
+            taken++;
+        }
+        return (double) shared / taken;
+    }
+
+    private static long hashWords(List<String> words) {
+        var hash = 0L;
+        for (var word : words) hash = hash * base + hashWord(word);
+        return hash;
+    }
+
+    // FNV-1a
+    private static long hashWord(String word) {
+        var hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < word.length(); i++) {
+            hash ^= word.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // the finalizer of splitmix64, so the order of the hashes is random and the smallest hashes are a random sample
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    /**
+     * Identifies the license list the fingerprints were computed from and the parameters they were computed with.
+     * The texts of a license list version do not change.
+     */
+    private static long checksum(String licenseListVersion, Collection<String> ids) {
+        var checksum = (long) shingleSize * 31 + sketchSize;
+        checksum = checksum * 31 + String.valueOf(licenseListVersion).hashCode();
+        for (var id : ids) {
+            checksum = checksum * 31 + id.hashCode();
+        }
+        return checksum;
+    }
+
+    private static LicenseFingerprintIndex read(Path file, long checksum) throws IOException {
+        try (var in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+            if (in.readInt() != magic || in.readInt() != formatVersion || in.readLong() != checksum) return null;
+            var count = in.readInt();
+            var ids = new String[count];
+            var sketches = new long[count][];
+            for (int i = 0; i < count; i++) {
+                ids[i] = in.readUTF();
+                sketches[i] = new long[in.readInt()];
+                for (int j = 0; j < sketches[i].length; j++) sketches[i][j] = in.readLong();
+            }
+            return new LicenseFingerprintIndex(ids, sketches);
+        }
+    }
+
+    private void write(Path file, long checksum) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeInt(magic);
+            out.writeInt(formatVersion);
+            out.writeLong(checksum);
+            out.writeInt(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                out.writeUTF(ids[i]);
+                out.writeInt(sketches[i].length);
+                for (var hash : sketches[i]) out.writeLong(hash);
+            }
+        }
+        AtomicFiles.write(file, bytes.toByteArray());
+    }
+}
@@ -0,0 +1,125 @@
+package repository.repositoryImpl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Finds the value of the key that contains a string, ignoring case. Built once from a table of the license repository (ids, names or aliases).
+ * <p>
+ * A key that equals the string is found with one hash lookup. Otherwise the keys are searched with a suffix array of all lower case keys:
+ * a binary search finds the suffixes that start with the string, and the shortest key among them is the match.
+ * If several keys match, the shortest one wins, then the alphabetically first one, so the result does not depend on the order of the table.
+ *
+ * @param <T> the type of the values
+ */
+public class LicenseNameIndex<T> {
+    // separates the keys in the text, sorts before every other character
+    private static final char separator = '\u0000';
+
+    // lower case key -> value
+    private final Map<String, T> exact = new HashMap<>();
+    // the values, in the order of their keys (shortest first)
+    private final List<T> values = new ArrayList<>();
+    // the lower case keys in the order of the values, each followed by the separator
+    private final String text;
+    // the start positions of all suffixes of the keys, sorted by the suffix
+    private final int[] suffixes;
+    // position in the text -> index of the key
+    private final int[] keyAt;
+
+    /**
+     * @param table key -> value
+     */
+    public LicenseNameIndex(Map<String, ? extends T> table) {
+        var entries = new ArrayList<Map.Entry<String, ? extends T>>(table.entrySet());
+        entries.sort(Comparator.comparing((Map.Entry<String, ? extends T> entry) -> entry.getKey().length()).thenComparing(Map.Entry::getKey));
+
+        var text = new StringBuilder();
+        var keyAt = new ArrayList<Integer>();
+        for (var entry : entries) {
+            var key = entry.getKey().toLowerCase(Locale.ROOT);
+            exact.putIfAbsent(key, entry.getValue());
+            for (int i = 0; i <= key.length(); i++) keyAt.add(values.size());
+            values.add(entry.getValue());
+            text.append(key).append(separator);
+        }
+        this.text = text.toString();
+        this.keyAt = keyAt.stream().mapToInt(Integer::intValue).toArray();
+
+        var positions = new ArrayList<Integer>(this.text.length());
+        for (int i = 0; i < this.text.length(); i++) {
+            if (this.text.charAt(i) != separator) positions.add(i);
+        }
+        positions.sort(this::compareSuffixes);
+        this.suffixes = positions.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @param input the string to search for
+     * @return the value of the shortest key that contains the input ignoring case or null if no key contains it
+     */
+    public T find(String input) {
+        var query = input.toLowerCase(Locale.ROOT);
+        var value = exact.get(query);
+        if (value != null) return value;
+        if (values.isEmpty() || query.indexOf(separator) >= 0) return null;
+        if (query.isEmpty()) return values.get(0);
+
+        var best = Integer.MAX_VALUE;
+        for (int i = lowerBound(query); i < suffixes.length && text.startsWith(query, suffixes[i]); i++) {
+            best = Math.min(best, keyAt[suffixes[i]]);
+            // the shortest key is the first one, it can not get better
+            if (best == 0) break;
+        }
+        return best == Integer.MAX_VALUE ? null : values.get(best);
+    }
+
+    /**
+     * @return the number of keys
+     */
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * @return the index of the first suffix that is not smaller than the query
+     */
+    private int lowerBound(String query) {
+        int low = 0, high = suffixes.length;
+        while (low < high) {
+            var middle = (low + high) >>> 1;
+            if (compareWithQuery(suffixes[middle], query) < 0) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Compares the suffix at the position with the query, only the first query.length() characters of the suffix are compared.
+     */
+    private int compareWithQuery(int position, String query) {
+        for (int i = 0; i < query.length(); i++) {
+            var c = text.charAt(position + i);
+            if (c != query.charAt(i)) return Character.compare(c, query.charAt(i));
+        }
+        return 0;
+    }
+
+    /**
+     * Compares two suffixes up to the end of their keys.
+     */
+    private int compareSuffixes(int a, int b) {
+        while (true) {
+            var ca = text.charAt(a);
+            var cb = text.charAt(b);
+            if (ca != cb) return Character.compare(ca, cb);
+            if (ca == separator) return 0;
+            a++;
+            b++;
+        }
+    }
+}
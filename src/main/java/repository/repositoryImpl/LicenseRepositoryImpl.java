@@ -10,34 +10,72 @@ import data.LicenseException;
 import data.internalData.SPDXLicense;
 import data.internalData.SPDXLicenseException;
 import logger.Logger;
+import network.HttpTransport;
 import repository.LicenseRepository;
 import settings.Settings;
+import util.CrawlExecutors;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
 import java.net.URI;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 public class LicenseRepositoryImpl implements LicenseRepository {
     private static final Logger logger = Logger.of("LicenseRepository");
     private static final String baseURI = "https://spdx.org/licenses/";
     private static final String licenseListURL = baseURI + "licenses.json";
     private static final String licenseExceptionsURL = baseURI + "exceptions.json";
+    private static final int detailsAttempts = 3;
+    // milliseconds, multiplied with the number of the attempt
+    private static final long detailsRetryDelay = 500;
 
     HashMap<String, License> idToLicense;
     HashMap<String, List<String>> idToSpecialName;
     HashMap<String, License> nameToLicense;
     HashMap<String, LicenseException> idToException;
+    // lookup indexes of the tables above, built once after they are loaded
+    private LicenseNameIndex<License> licenseIdIndex;
+    private LicenseNameIndex<LicenseException> exceptionIdIndex;
+    private LicenseNameIndex<License> licenseNameIndex;
+    private LicenseNameIndex<String> specialNameIndex;
+    private LicenseTextMatcher<LicenseTextMatch> licenseTextMatcher;
+    private LicenseFingerprintIndex licenseFingerprints;
+    // the version of the SPDX license list the tables were loaded from
+    private String licenseListVersion;
+    // the parsed license strings, a crawl sees the same few strings for most components
+    private final Map<LicenseChoiceKey, LicenseChoice> licenseChoices = new ConcurrentHashMap<>();
+    private final AtomicInteger licenseChoiceHits = new AtomicInteger();
+    private final AtomicInteger licenseChoiceMisses = new AtomicInteger();
+
+    /**
+     * A license found in a license text: either a license with the expression of the license choice, or the id of a custom name.
+     */
+    private record LicenseTextMatch(License license, String expression, String customNameId) {
+    }
+
+    /**
+     * The key of a parsed license string: the string without surrounding whitespace and the url.
+     */
+    private record LicenseChoiceKey(String licenseString, String url) {
+    }
 
     private static LicenseRepositoryImpl instance;
 
@@ -54,35 +92,40 @@ public class LicenseRepositoryImpl implements LicenseRepository {
         this.idToSpecialName = new HashMap<>();
         this.idToException = new HashMap<>();
 
+        load();
+        buildNameIndex();
+        licenseFingerprints = LicenseFingerprintIndex.load(new File(Settings.getDataFolder(), "license-fingerprints.bin").toPath(), idToLicense, licenseListVersion);
+    }
+
+    private void load() {
         // LOAD SPDX LICENSES
-        var licenseListFile = new File(Settings.getDataFolder(), "licenses.json");
+        var snapshotFile = new File(Settings.getDataFolder(), "licenses.bin");
         try {
-            Files.createDirectories(licenseListFile.getParentFile().toPath());
+            Files.createDirectories(snapshotFile.getParentFile().toPath());
         } catch (IOException e) {
             logger.error("Could not create license list file. No licenses will be loaded. " + e.getMessage());
             return;
         }
-        JsonObject licenseListNet = null;
-        JsonObject licenseExceptionsNet = null;
-        try {
-            licenseListNet = JsonParser.parseReader(new InputStreamReader(URI.create(licenseListURL).toURL().openStream())).getAsJsonObject();
-        } catch (IOException e) {
-            logger.error("Could not load license list from net. " + e.getMessage());
-        }
-        try {
-            licenseExceptionsNet = JsonParser.parseReader(new InputStreamReader(URI.create(licenseExceptionsURL).toURL().openStream())).getAsJsonObject();
-        } catch (IOException e) {
-            logger.error("Could not load license exception list from net. " + e.getMessage());
-        }
 
-        if (licenseListFile.exists()) {
-            readLicensesFromFile(licenseListFile, licenseListNet, licenseExceptionsNet);
-        } else {
-            if (licenseListNet == null) {
-                return;
+        var snapshot = readSnapshot(snapshotFile.toPath());
+        var downloaded = false;
+        if (snapshot == null) {
+            var licenseListFile = new File(Settings.getDataFolder(), "licenses.json");
+            if (licenseListFile.exists()) {
+                snapshot = readLicensesFromFile(licenseListFile);
+            } else {
+                snapshot = readLicensesFromNet();
+                downloaded = true;
             }
-            readLicensesFromNet(licenseListFile, licenseListNet, licenseExceptionsNet);
+            if (snapshot != null) saveSnapshot(snapshotFile.toPath(), snapshot);
         }
+        if (snapshot == null) {
+            logger.error("Could not load local license and internet license list. No licenses will be loaded. The tool will not be able to determine SPDX License IDs!");
+            return;
+        }
+
+        applySnapshot(snapshot);
+        if (!downloaded) revalidateInBackground(snapshotFile.toPath(), snapshot);
 
         // LOAD CUSTOM LICENSE NAMES
         var customLicenseNameFile = new File(Settings.getDataFolder(), "license-custom-names.json");
@@ -93,6 +136,28 @@ public class LicenseRepositoryImpl implements LicenseRepository {
         }
     }
 
+    /**
+     * Builds the lookup indexes of the license tables. The custom names map to the id of their license.
+     */
+    private void buildNameIndex() {
+        var start = System.currentTimeMillis();
+        licenseIdIndex = new LicenseNameIndex<>(idToLicense);
+        exceptionIdIndex = new LicenseNameIndex<>(idToException);
+        licenseNameIndex = new LicenseNameIndex<>(nameToLicense);
+        var specialNames = new HashMap<String, String>();
+        idToSpecialName.forEach((id, names) -> names.forEach(name -> specialNames.putIfAbsent(name, id)));
+        specialNameIndex = new LicenseNameIndex<>(specialNames);
+
+        // the priority is the order license texts were searched in before: ids, exceptions, names, custom names
+        licenseTextMatcher = new LicenseTextMatcher<>();
+        idToLicense.forEach((id, license) -> licenseTextMatcher.add(id, 0, new LicenseTextMatch(license, license.id(), null)));
+        idToException.forEach((id, exception) -> licenseTextMatcher.add(id, 1, new LicenseTextMatch(exception, exception.id(), null)));
+        nameToLicense.forEach((name, license) -> licenseTextMatcher.add(name, 2, new LicenseTextMatch(license, license.name(), null)));
+        idToSpecialName.forEach((id, names) -> names.forEach(name -> licenseTextMatcher.add(name, 3, new LicenseTextMatch(null, null, id))));
+        licenseTextMatcher.build();
+        logger.info("Indexed " + (licenseIdIndex.size() + exceptionIdIndex.size() + licenseNameIndex.size() + specialNameIndex.size()) + " license ids and names (" + (System.currentTimeMillis() - start) + "ms)");
+    }
+
     /**
      * Load the custom license names from the file.
      */
@@ -192,171 +257,298 @@ public class LicenseRepositoryImpl implements LicenseRepository {
 
     }
 
+    private LicenseSnapshot readSnapshot(Path file) {
+        try {
+            return LicenseSnapshot.read(file);
+        } catch (IOException e) {
+            logger.error("Could not read license snapshot " + file + ". " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void saveSnapshot(Path file, LicenseSnapshot snapshot) {
+        try {
+            snapshot.write(file);
+        } catch (IOException e) {
+            logger.error("Could not write licenses to file. " + e.getMessage());
+        }
+    }
+
+    /**
+     * Fills the license tables from the snapshot. The details of the licenses are parsed when they are used.
+     */
+    private void applySnapshot(LicenseSnapshot snapshot) {
+        for (var entry : snapshot.licenses()) {
+            var data = JsonParser.parseString(entry.data()).getAsJsonObject();
+            var license = new SPDXLicense(data, entry.details());
+            nameToLicense.put(data.get("name").getAsString(), license);
+            idToLicense.put(data.get("licenseId").getAsString(), license);
+        }
+        for (var entry : snapshot.exceptions()) {
+            var data = JsonParser.parseString(entry.data()).getAsJsonObject();
+            idToException.put(data.get("licenseExceptionId").getAsString(), new SPDXLicenseException(data, entry.details()));
+        }
+        licenseListVersion = snapshot.licenseListVersion();
+        logger.success("Loaded " + nameToLicense.size() + " licenses");
+        logger.success("Loaded " + idToException.size() + " license exceptions");
+    }
+
     /**
-     * Reads all licenses from the file. If the file is outdated, it will be updated from the net.
-     * If the file does not have a version, it will be updated from the net.
+     * Reads all licenses from the json file older versions of the tool saved. It is replaced by the snapshot and revalidated like it.
      *
-     * @param file                 The file to read from
-     * @param licenseListNet       The json object from the net
-     * @param licenseExceptionsNet The json object from the net
+     * @param file The file to read from
+     * @return the licenses or null if the file could not be read
      */
-    private void readLicensesFromFile(File file, JsonObject licenseListNet, JsonObject licenseExceptionsNet) {
+    private LicenseSnapshot readLicensesFromFile(File file) {
         logger.info("Loading license list from file... ");
 
-        String netVersion = null;
-        if (licenseListNet.has("licenseListVersion") && licenseExceptionsNet.has("licenseListVersion")) {
-            var licenseListVersion = licenseListNet.get("licenseListVersion").getAsString();
-            var licenseExceptionsVersion = licenseExceptionsNet.get("licenseListVersion").getAsString();
-            if (licenseListVersion.equals(licenseExceptionsVersion)) {
-                netVersion = licenseListVersion;
-            }
-        }
-
         try (var reader = new FileReader(file)) {
             var parsed = JsonParser.parseReader(reader);
-
-            if (parsed.isJsonNull()) {
-                readLicensesFromNet(file, licenseListNet, licenseExceptionsNet);
-                return;
-            }
+            if (parsed.isJsonNull()) return readLicensesFromNet();
 
             var jsonFile = parsed.getAsJsonObject();
             var fileVersion = jsonFile.get("licenseListVersion");
-
-            if (netVersion != null) {
-                if (fileVersion == null) {
-                    logger.info("Could not find version in file. Updating licenseFile...");
-                    readLicensesFromNet(file, licenseListNet, licenseExceptionsNet);
-                    return;
-                }
-                if (!netVersion.equals(fileVersion.getAsString())) {
-                    logger.info("File version is outdated. Updating from " + fileVersion.getAsString() + " to " + netVersion + "...");
-                    readLicensesFromNet(file, licenseListNet, licenseExceptionsNet);
-                    return;
-                }
-            }
-
             if (fileVersion == null) {
-                logger.error("Could not load local license and internet license list. No licenses will be loaded. The tool will not be able to determine SPDX License IDs!");
-                return;
+                logger.info("Could not find version in file. Updating licenseFile...");
+                return readLicensesFromNet();
             }
 
+            var licenses = new TreeMap<String, LicenseSnapshot.Entry>();
             for (var license : jsonFile.get("licenses").getAsJsonArray()) {
                 var data = license.getAsJsonObject().get("data").getAsJsonObject();
-                var details = license.getAsJsonObject().get("details").getAsJsonObject();
-
-                SPDXLicense licenseActual = new SPDXLicense(data, details);
-                nameToLicense.put(data.get("name").getAsString(), licenseActual);
-                idToLicense.put(data.get("licenseId").getAsString(), licenseActual);
+                licenses.put(data.get("licenseId").getAsString(), LicenseSnapshot.Entry.of(data, license.getAsJsonObject().get("details").getAsJsonObject()));
             }
-
+            var exceptions = new TreeMap<String, LicenseSnapshot.Entry>();
             for (var exception : jsonFile.get("exceptions").getAsJsonArray()) {
                 var data = exception.getAsJsonObject().get("data").getAsJsonObject();
-                var details = exception.getAsJsonObject().get("details").getAsJsonObject();
+                exceptions.put(data.get("licenseExceptionId").getAsString(), LicenseSnapshot.Entry.of(data, exception.getAsJsonObject().get("details").getAsJsonObject()));
+            }
+            return new LicenseSnapshot(fileVersion.getAsString(), LicenseSnapshot.Validator.none, List.copyOf(licenses.values()), List.copyOf(exceptions.values()), true);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not read licenses from file. Loading from net...", e);
+            return readLicensesFromNet();
+        }
+    }
 
-                idToException.put(data.get("licenseExceptionId").getAsString(), new SPDXLicenseException(data, details));
+    /**
+     * Reads all spdx licenses from the net. This blocks the start of the tool, it is only done if there is no snapshot yet.
+     *
+     * @return the licenses or null if the license lists could not be loaded
+     */
+    private LicenseSnapshot readLicensesFromNet() {
+        try {
+            var licenseList = downloadList(licenseListURL, LicenseSnapshot.Validator.none);
+            var licenseExceptions = downloadList(licenseExceptionsURL, LicenseSnapshot.Validator.none);
+            return downloadLicenses(licenseList, licenseExceptions, null);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not load license list from net. " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void revalidateInBackground(Path snapshotFile, LicenseSnapshot snapshot) {
+        var thread = new Thread(() -> revalidate(snapshotFile, snapshot), "license-revalidation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Asks spdx.org with a conditional request if the license list changed since the snapshot was saved.
+     * Only if the license list version changed, all licenses are downloaded again. If the snapshot is incomplete, the missing licenses are downloaded.
+     * The new snapshot is used from the next run on, the license tables of this run do not change.
+     */
+    private void revalidate(Path snapshotFile, LicenseSnapshot snapshot) {
+        try {
+            var licenseList = downloadList(licenseListURL, snapshot.complete() ? snapshot.licenseListValidator() : LicenseSnapshot.Validator.none);
+            if (licenseList == null) {
+                logger.info("License list " + snapshot.licenseListVersion() + " is up to date.");
+                return;
             }
-            logger.success("Loaded " + nameToLicense.size() + " licenses");
-            logger.success("Loaded " + idToException.size() + " license exceptions");
 
-        } catch (IOException e) {
-            logger.error("Could not read licenses from file. Loading from net...", e);
-            readLicensesFromNet(file, licenseListNet, licenseExceptionsNet);
+            var netVersion = licenseList.json().get("licenseListVersion").getAsString();
+            if (netVersion.equals(snapshot.licenseListVersion())) {
+                if (snapshot.complete()) {
+                    logger.info("License list " + snapshot.licenseListVersion() + " is up to date.");
+                    saveSnapshot(snapshotFile, snapshot.withLicenseListValidator(licenseList.validator()));
+                    return;
+                }
+                logger.info("License list " + netVersion + " is incomplete. Downloading the missing licenses in the background...");
+            } else {
+                logger.info("License list is outdated. Updating from " + snapshot.licenseListVersion() + " to " + netVersion + " in the background...");
+            }
+
+            var licenseExceptions = downloadList(licenseExceptionsURL, LicenseSnapshot.Validator.none);
+            var updated = downloadLicenses(licenseList, licenseExceptions, snapshot);
+            saveSnapshot(snapshotFile, updated);
+            if (updated.complete()) logger.success("Updated license list to " + netVersion + ". It will be used from the next run on.");
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not revalidate license list. " + e.getMessage());
         }
     }
 
     /**
-     * Reads all spdx licenses from the net and saves them to the file.
-     * The currently newest version of the license list is saved in the file.
+     * A license list downloaded from spdx.org.
+     */
+    private record LicenseList(JsonObject json, LicenseSnapshot.Validator validator) {
+    }
+
+    /**
+     * Downloads a license list, conditionally if the validator has headers.
+     *
+     * @return the list or null if it did not change
+     */
+    private static LicenseList downloadList(String url, LicenseSnapshot.Validator validator) throws IOException {
+        var transport = HttpTransport.getInstance();
+        var request = transport.newRequest(URI.create(url)).GET();
+        if (validator.etag() != null) request.header("If-None-Match", validator.etag());
+        if (validator.lastModified() != null) request.header("If-Modified-Since", validator.lastModified());
+
+        var response = transport.send(request.build());
+        var status = response.statusCode();
+        if (status == HttpURLConnection.HTTP_NOT_MODIFIED && validator != LicenseSnapshot.Validator.none) return null;
+        if (status != HttpURLConnection.HTTP_OK) throw new IOException("Unexpected status " + status + " for " + url);
+        return new LicenseList(JsonParser.parseString(response.bodyAsString()).getAsJsonObject(), LicenseSnapshot.Validator.of(response.headers()));
+    }
+
+    /**
+     * Downloads the details of all licenses and exceptions of the lists, at most {@link Settings#crawlThreads} at the same time.
+     * A failed download is tried again up to {@link #detailsAttempts} times. The entries are merged when all downloads are done,
+     * sorted by id, so the snapshot does not depend on the order the downloads finish in.
+     * <p>
+     * If some details could not be downloaded, the snapshot is incomplete. It is saved anyway, and the next revalidation only downloads the missing details.
      *
-     * @param file                 The file to write to
-     * @param licenseListNet       The json object from the net
-     * @param licenseExceptionsNet The json object from the net
+     * @param licenseList       the license list
+     * @param licenseExceptions the license exception list
+     * @param previous          a snapshot whose entries are used if it has the same license list version, can be null
+     * @return the licenses
      */
-    private void readLicensesFromNet(File file, JsonObject licenseListNet, JsonObject licenseExceptionsNet) {
+    private LicenseSnapshot downloadLicenses(LicenseList licenseList, LicenseList licenseExceptions, LicenseSnapshot previous) {
         logger.info("Loading license list from net... ");
-        JsonArray fileLicenses = new JsonArray();
-        JsonArray fileExceptions = new JsonArray();
+        var start = System.currentTimeMillis();
+        var version = licenseList.json().get("licenseListVersion").getAsString();
+
+        // the details of this version that were downloaded before
+        var downloadedLicenses = new HashMap<String, LicenseSnapshot.Entry>();
+        var downloadedExceptions = new HashMap<String, LicenseSnapshot.Entry>();
+        if (previous != null && version.equals(previous.licenseListVersion())) {
+            previous.licenses().forEach(entry -> downloadedLicenses.put(getId(entry, "licenseId"), entry));
+            previous.exceptions().forEach(entry -> downloadedExceptions.put(getId(entry, "licenseExceptionId"), entry));
+        }
+
+        var executor = CrawlExecutors.newStageExecutor("spdx", Settings.crawlThreads);
         try {
-            ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(Settings.crawlThreads);
-
-            for (var license : licenseListNet.get("licenses").getAsJsonArray()) {
-                var licenseObject = license.getAsJsonObject();
-                executor.execute(() -> {
-                    logger.info("Loading " + licenseObject.get("name") + "...");
-                    try {
-                        var startTime = System.currentTimeMillis();
-                        var data = license.getAsJsonObject();
-                        var details = JsonParser.parseReader(new InputStreamReader(URI.create(licenseObject.get("detailsUrl").getAsString()).toURL().openStream())).getAsJsonObject();
-                        var licenseJson = new JsonObject();
-                        licenseJson.add("data", data);
-                        licenseJson.add("details", details);
-                        fileLicenses.add(licenseJson);
-                        SPDXLicense licenseActual = new SPDXLicense(data, details);
-                        nameToLicense.put(licenseObject.get("name").getAsString(), licenseActual);
-                        idToLicense.put(licenseObject.get("licenseId").getAsString(), licenseActual);
-                        logger.success("Loaded " + licenseObject.get("name") + " (" + (System.currentTimeMillis() - startTime) + "ms)");
-                    } catch (IOException e) {
-                        logger.error("Could not load " + license + ". " + e.getMessage());
-                    }
-                });
+            var licenses = downloadDetails(executor, licenseList.json().get("licenses").getAsJsonArray(), "licenseId",
+                    data -> URI.create(data.get("detailsUrl").getAsString()), downloadedLicenses);
+            // the reference of an exception is the relative url of its details
+            var exceptions = downloadDetails(executor, licenseExceptions.json().get("exceptions").getAsJsonArray(), "licenseExceptionId",
+                    data -> URI.create(baseURI + data.get("reference").getAsString().substring(2)), downloadedExceptions);
+
+            var licenseEntries = merge(licenses);
+            var exceptionEntries = merge(exceptions);
+            var complete = licenseEntries.size() == licenses.size() && exceptionEntries.size() == exceptions.size();
+            if (complete) {
+                logger.success("Loaded " + licenseEntries.size() + " licenses and " + exceptionEntries.size() + " license exceptions (" + (System.currentTimeMillis() - start) + "ms)");
+            } else {
+                logger.error("Loaded " + licenseEntries.size() + " of " + licenses.size() + " licenses and " + exceptionEntries.size() + " of " + exceptions.size() + " license exceptions. The missing ones are downloaded in the next run.");
             }
+            return new LicenseSnapshot(version, licenseList.validator(), licenseEntries, exceptionEntries, complete);
+        } finally {
+            executor.shutdown();
+        }
+    }
 
+    /**
+     * Starts the downloads of the details of all entries of a list that were not downloaded before.
+     *
+     * @param idKey      the key of the id in an entry of the list
+     * @param detailsUri entry of the list -> uri of its details
+     * @param downloaded id -> entry, the entries that do not have to be downloaded
+     * @return id -> the entry or null if its details could not be downloaded
+     */
+    private static TreeMap<String, CompletableFuture<LicenseSnapshot.Entry>> downloadDetails(ExecutorService executor, JsonArray list, String idKey, Function<JsonObject, URI> detailsUri, Map<String, LicenseSnapshot.Entry> downloaded) {
+        var downloads = new TreeMap<String, CompletableFuture<LicenseSnapshot.Entry>>();
+        for (var element : list) {
+            var data = element.getAsJsonObject();
+            var id = data.get(idKey).getAsString();
+            var entry = downloaded.get(id);
+            downloads.put(id, entry != null ? CompletableFuture.completedFuture(entry) : CompletableFuture.supplyAsync(() -> downloadDetails(data, detailsUri.apply(data)), executor));
+        }
+        return downloads;
+    }
 
-            for (var licenseExceptionO : licenseExceptionsNet.get("exceptions").getAsJsonArray()) {
-                var licenseException = licenseExceptionO.getAsJsonObject();
-                executor.execute(() -> {
-                    try {
-                        logger.info("Loading " + licenseException.get("reference") + "...");
-                        var startTime = System.currentTimeMillis();
-                        var data = JsonParser.parseReader(new InputStreamReader(URI.create(baseURI + licenseException.get("reference").getAsString().substring(2)).toURL().openStream())).getAsJsonObject();
-                        var details = JsonParser.parseReader(new InputStreamReader(URI.create(baseURI + licenseException.get("reference").getAsString().substring(2)).toURL().openStream())).getAsJsonObject();
-                        var licenseJson = new JsonObject();
-                        licenseJson.add("data", data);
-                        licenseJson.add("details", details);
-
-                        fileExceptions.add(licenseJson);
-                        SPDXLicenseException exceptionActual = new SPDXLicenseException(data, details);
-                        idToException.put(licenseException.get("licenseExceptionId").getAsString(), exceptionActual);
-                        logger.success("Loaded " + licenseException.get("reference") + " (" + (System.currentTimeMillis() - startTime) + "ms)");
-                    } catch (IOException e) {
-                        logger.error("Could not load " + licenseException + ". " + e.getMessage());
-                    }
-                });
+    /**
+     * Downloads the details of an entry of a license list, with up to {@link #detailsAttempts} attempts.
+     *
+     * @param data the entry of the list
+     * @param uri  the uri of the details
+     * @return the entry or null if the details could not be downloaded
+     */
+    private static LicenseSnapshot.Entry downloadDetails(JsonObject data, URI uri) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                var details = JsonParser.parseString(HttpTransport.getInstance().getString(uri)).getAsJsonObject();
+                return LicenseSnapshot.Entry.of(data, details);
+            } catch (FileNotFoundException e) {
+                logger.error("Could not load " + uri + ". Not found.");
+                return null;
+            } catch (IOException | RuntimeException e) {
+                if (attempt == detailsAttempts) {
+                    logger.error("Could not load " + uri + " after " + attempt + " attempts. " + e.getMessage());
+                    return null;
+                }
             }
 
-            executor.shutdown();
-            if (!executor.awaitTermination(2, TimeUnit.MINUTES)) {
-                executor.shutdownNow();
-                throw new RuntimeException("License loading took too long (>2m). Terminating...");
+            try {
+                Thread.sleep(detailsRetryDelay * attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
             }
-
-            logger.success(" Loaded " + nameToLicense.size() + " licenses");
-        } catch (Exception e) {
-            logger.error(e.getMessage());
         }
+    }
 
-        try (var writer = new FileWriter(file)) {
-            var jsonFile = new JsonObject();
-            jsonFile.addProperty("licenseListVersion", licenseListNet.get("licenseListVersion").getAsString());
-            jsonFile.add("licenses", fileLicenses);
-            jsonFile.add("exceptions", fileExceptions);
-            new GsonBuilder().setPrettyPrinting().create().toJson(jsonFile, writer);
-        } catch (IOException e) {
-            logger.error("Could not write licenses to file. " + e.getMessage());
-        }
+    /**
+     * Waits for the downloads and collects the entries that were downloaded, in the order of their ids.
+     */
+    private static List<LicenseSnapshot.Entry> merge(TreeMap<String, CompletableFuture<LicenseSnapshot.Entry>> downloads) {
+        return downloads.values().stream().map(CompletableFuture::join).filter(Objects::nonNull).toList();
+    }
+
+    private static String getId(LicenseSnapshot.Entry entry, String idKey) {
+        return JsonParser.parseString(entry.data()).getAsJsonObject().get(idKey).getAsString();
     }
 
 
     @Override
     public License getLicense(String name, String url, String componentName) {
-        return new LicenseParser(name, url, componentName).getLicenseChoice().licenses().stream().findFirst().orElse(null);
+        return getLicenseChoice(name, url, componentName).licenses().stream().findFirst().orElse(null);
 
     }
 
+    /**
+     * Every license string is parsed once per url. The license choice is shared by all components with the same string,
+     * so warnings about unknown licenses in an expression are only logged for the first component.
+     */
     @Override
     public LicenseChoice getLicenseChoice(String licenseString, String url, String componentName) {
-        return new LicenseParser(licenseString, url, componentName).getLicenseChoice();
+        var key = new LicenseChoiceKey(licenseString.strip(), url);
+        var licenseChoice = licenseChoices.get(key);
+        if (licenseChoice != null) {
+            licenseChoiceHits.incrementAndGet();
+            return licenseChoice;
+        }
+
+        // not computeIfAbsent, a license text can resolve to a custom name, which is parsed with a nested call
+        licenseChoiceMisses.incrementAndGet();
+        var parsed = new LicenseParser(key.licenseString(), url, componentName).getLicenseChoice();
+        parsed = LicenseChoice.of(Collections.unmodifiableList(new ArrayList<>(parsed.licenses())), parsed.expression(), parsed.acknowledgement());
+        var previous = licenseChoices.putIfAbsent(key, parsed);
+        return previous == null ? parsed : previous;
+    }
+
+    @Override
+    public String getStatistics() {
+        return "parsed license strings: " + licenseChoiceMisses.get() + ", reused: " + licenseChoiceHits.get();
     }
 
     /**
@@ -386,84 +578,67 @@ public class LicenseRepositoryImpl implements LicenseRepository {
             }
         }
 
+        /**
+         * Looks for an id, exception id, name or custom name that contains the input, ignoring case, in this order. See {@link LicenseNameIndex}.
+         */
         private void parseIdOrName() {
-            var input = this.input.replaceAll("\\(", Matcher.quoteReplacement("\\("));
-            input = input.replaceAll("\\)", Matcher.quoteReplacement("\\)"));
-            input = input.replaceAll("\\.", Matcher.quoteReplacement("\\."));
-            var pattern = Pattern.compile(input, Pattern.CASE_INSENSITIVE);
-
-            for (var idToLicenseEntry : idToLicense.entrySet()) {
-                var matcher = pattern.matcher(idToLicenseEntry.getKey());
-                if (matcher.find()) {
-                    this.licenseChoice = LicenseChoice.of(List.of(idToLicenseEntry.getValue()), idToLicenseEntry.getValue().id(), null);
-                    return;
-                }
+            var license = licenseIdIndex.find(input);
+            if (license != null) {
+                this.licenseChoice = LicenseChoice.of(List.of(license), license.id(), null);
+                return;
             }
 
-            for (var exceptionEntry : idToException.entrySet()) {
-                var matcher = pattern.matcher(exceptionEntry.getKey());
-                if (matcher.find()) {
-                    this.licenseChoice = LicenseChoice.of(List.of(exceptionEntry.getValue()), exceptionEntry.getValue().id(), null);
-                    return;
-                }
+            var exception = exceptionIdIndex.find(input);
+            if (exception != null) {
+                this.licenseChoice = LicenseChoice.of(List.of(exception), exception.id(), null);
+                return;
             }
 
-            for (var nameToLicenseEntry : nameToLicense.entrySet()) {
-                var matcher = pattern.matcher(nameToLicenseEntry.getKey());
-                if (matcher.find()) {
-                    this.licenseChoice = LicenseChoice.of(List.of(nameToLicenseEntry.getValue()), nameToLicenseEntry.getValue().id(), null);
-                    return;
-                }
+            license = licenseNameIndex.find(input);
+            if (license != null) {
+                this.licenseChoice = LicenseChoice.of(List.of(license), license.id(), null);
+                return;
             }
 
-            for (var customNameEntry : idToSpecialName.entrySet()) {
-                for (var name : customNameEntry.getValue()) {
-                    var matcher = pattern.matcher(name);
-                    if (matcher.find() || name.equalsIgnoreCase(input)) {
-                        this.licenseChoice = new LicenseExpressionParser(customNameEntry.getKey(), url, componentName).getLicenseChoice();
-                        return;
-                    }
-                }
+            var id = specialNameIndex.find(input);
+            if (id != null) {
+                this.licenseChoice = new LicenseExpressionParser(id, url, componentName).getLicenseChoice();
+                return;
             }
 
             this.isSPDXLicense = false;
             this.licenseChoice = LicenseChoice.of(List.of(License.of(null, input, null, url, null, null, null)), null, null);
         }
 
+        /**
+         * Compares the license text with the texts of the SPDX licenses, see {@link LicenseFingerprintIndex}.
+         * If no license text is similar enough, or several license texts are equally similar (e.g. GPL-2.0-only and GPL-2.0-or-later have the same text),
+         * looks for an id, exception id, name or custom name in the beginning of the license text, ignoring case. See {@link LicenseTextMatcher}.
+         */
         private void parseLicenseFile() {
-            // we only look at the beginning of the license, as the license may contain names of other licenses later on.
-            var licenseData = input.substring(0, 200);
-
-            for (var licenseToIdEntry : idToLicense.entrySet()) {
-                if (Pattern.compile(".*" + licenseToIdEntry.getKey() + ".*", Pattern.DOTALL | Pattern.CASE_INSENSITIVE).matcher(licenseData).find()) {
-                    this.licenseChoice = LicenseChoice.of(List.of(licenseToIdEntry.getValue()), licenseToIdEntry.getValue().id(), null);
-                    return;
-                }
+            var fingerprintMatch = licenseFingerprints.find(input);
+            if (fingerprintMatch != null && !fingerprintMatch.isAmbiguous()) {
+                var license = idToLicense.get(fingerprintMatch.id());
+                this.licenseChoice = LicenseChoice.of(List.of(license), license.id(), null);
+                return;
             }
 
-            for (var exceptionEntry : idToException.entrySet()) {
-                if (Pattern.compile(".*" + exceptionEntry.getKey() + ".*", Pattern.DOTALL | Pattern.CASE_INSENSITIVE).matcher(licenseData).find()) {
-                    this.licenseChoice = LicenseChoice.of(List.of(exceptionEntry.getValue()), exceptionEntry.getValue().id(), null);
-                    return;
-                }
-            }
+            // we only look at the beginning of the license, as the license may contain names of other licenses later on.
+            var licenseData = input.substring(0, 200);
 
-            for (var licenseToNameEntry : nameToLicense.entrySet()) {
-                if (Pattern.compile(".*" + licenseToNameEntry.getKey() + ".*", Pattern.DOTALL | Pattern.CASE_INSENSITIVE).matcher(licenseData).find()) {
-                    this.licenseChoice = LicenseChoice.of(List.of(licenseToNameEntry.getValue()), licenseToNameEntry.getValue().name(), null);
-                    return;
+            var match = licenseTextMatcher.find(licenseData);
+            if (match != null) {
+                if (match.license() != null) {
+                    this.licenseChoice = LicenseChoice.of(List.of(match.license()), match.expression(), null);
+                } else {
+                    this.licenseChoice = LicenseRepositoryImpl.getInstance().getLicenseChoice(match.customNameId(), url, componentName);
                 }
+                return;
             }
 
-            for (var customNameEntry : idToSpecialName.entrySet()) {
-                for (var name : customNameEntry.getValue()) {
-                    if (Pattern.compile(".*" + name + ".*", Pattern.DOTALL | Pattern.CASE_INSENSITIVE).matcher(licenseData).find()) {
-                        this.licenseChoice = LicenseRepositoryImpl.getInstance().getLicenseChoice(customNameEntry.getKey(), url, componentName);
-                        return;
-                    }
-                }
+            if (fingerprintMatch != null) {
+                logger.info("License text of " + componentName + " matches " + String.join(", ", fingerprintMatch.ties()) + " equally well.");
             }
-
             this.licenseChoice = LicenseChoice.of(List.of(License.of(null, "unknown license", input, url, null, null, null)), null, null);
             this.isSPDXLicense = false;
         }
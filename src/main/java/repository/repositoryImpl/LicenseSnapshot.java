@@ -0,0 +1,138 @@
+package repository.repositoryImpl;
+
+import com.google.gson.JsonObject;
+import util.AtomicFiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A binary snapshot of the SPDX license list and license exception list with the details of every entry, saved in the data folder.
+ * <p>
+ * The entries are stored as compact json text without the html versions of the texts. Loading a snapshot only parses the small list entries,
+ * the details of a license are parsed when they are used (see {@link data.internalData.SPDXLicense}).
+ * The snapshot also stores the ETag / Last-Modified headers of the license list, to revalidate it with a conditional request.
+ * <p>
+ * If the details of some entries could not be downloaded, the snapshot is incomplete. The next download of the same license list version
+ * only downloads the missing details.
+ *
+ * @param licenseListVersion   the version of the license list
+ * @param licenseListValidator the headers of the license list response
+ * @param licenses             the licenses, sorted by id
+ * @param exceptions           the license exceptions, sorted by id
+ * @param complete             false if some entries of the lists are missing
+ */
+record LicenseSnapshot(String licenseListVersion, Validator licenseListValidator, List<Entry> licenses, List<Entry> exceptions, boolean complete) {
+    private static final int magic = 0x4C534E50;
+    private static final int formatVersion = 2;
+
+    /**
+     * The headers of a response that are sent with a conditional request, both can be null.
+     */
+    record Validator(String etag, String lastModified) {
+        static final Validator none = new Validator(null, null);
+
+        static Validator of(HttpHeaders headers) {
+            return new Validator(headers.firstValue("ETag").orElse(null), headers.firstValue("Last-Modified").orElse(null));
+        }
+    }
+
+    /**
+     * An entry of the license or exception list and its details, as json text.
+     */
+    record Entry(String data, String details) {
+        static Entry of(JsonObject data, JsonObject details) {
+            // the html texts are as large as the texts and not used
+            var compactDetails = details.deepCopy();
+            for (var key : List.copyOf(compactDetails.keySet())) {
+                if (key.endsWith("Html")) compactDetails.remove(key);
+            }
+            return new Entry(data.toString(), compactDetails.toString());
+        }
+    }
+
+    LicenseSnapshot withLicenseListValidator(Validator validator) {
+        return new LicenseSnapshot(licenseListVersion, validator, licenses, exceptions, complete);
+    }
+
+    /**
+     * @param file the file
+     * @return the snapshot or null if the file does not exist or was written by another version of the tool
+     * @throws IOException if the file could not be read
+     */
+    static LicenseSnapshot read(Path file) throws IOException {
+        if (!Files.exists(file)) return null;
+        try (var in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+            if (in.readInt() != magic || in.readInt() != formatVersion) return null;
+            var licenseListVersion = readString(in);
+            var validator = new Validator(readString(in), readString(in));
+            var complete = in.readBoolean();
+            var licenses = readEntries(in);
+            var exceptions = readEntries(in);
+            return new LicenseSnapshot(licenseListVersion, validator, licenses, exceptions, complete);
+        }
+    }
+
+    /**
+     * Writes the snapshot, readers never see a partially written file.
+     */
+    void write(Path file) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeInt(magic);
+            out.writeInt(formatVersion);
+            writeString(out, licenseListVersion);
+            writeString(out, licenseListValidator.etag());
+            writeString(out, licenseListValidator.lastModified());
+            out.writeBoolean(complete);
+            writeEntries(out, licenses);
+            writeEntries(out, exceptions);
+        }
+        AtomicFiles.write(file, bytes.toByteArray());
+    }
+
+    private static List<Entry> readEntries(DataInputStream in) throws IOException {
+        var count = in.readInt();
+        var entries = new ArrayList<Entry>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(new Entry(readString(in), readString(in)));
+        }
+        return entries;
+    }
+
+    private static void writeEntries(DataOutputStream out, List<Entry> entries) throws IOException {
+        out.writeInt(entries.size());
+        for (var entry : entries) {
+            writeString(out, entry.data());
+            writeString(out, entry.details());
+        }
+    }
+
+    // writeUTF is limited to 64KB, some license texts are longer
+    private static String readString(DataInputStream in) throws IOException {
+        var length = in.readInt();
+        if (length < 0) return null;
+        var bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,136 @@
+package repository.repositoryImpl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds license identifiers in a text, ignoring case, with an Aho-Corasick automaton over all identifiers.
+ * <p>
+ * The automaton is built once, a text is scanned in a single pass, independent of the number of identifiers.
+ * Every identifier has a priority. If the text contains several identifiers, the one with the lowest priority wins, then the longest one, then the one that ends first.
+ *
+ * @param <T> the type of the values of the identifiers
+ */
+public class LicenseTextMatcher<T> {
+    private record Keyword<T>(int priority, int length, T value) {
+    }
+
+    // (node << 16 | character) -> child node
+    private final Map<Long, Integer> children = new HashMap<>();
+    private final List<Integer> fail = new ArrayList<>();
+    // node -> index of the best keyword that ends in the node (including its suffixes) or -1
+    private final List<Integer> output = new ArrayList<>();
+    private final List<Keyword<T>> keywords = new ArrayList<>();
+    private volatile boolean built = false;
+
+    public LicenseTextMatcher() {
+        fail.add(0);
+        output.add(-1);
+    }
+
+    /**
+     * Adds an identifier. Has to be called before the first {@link #find(String)}.
+     *
+     * @param keyword  the identifier
+     * @param priority the priority, lower wins
+     * @param value    the value that is returned if the identifier is found
+     */
+    public void add(String keyword, int priority, T value) {
+        if (built) throw new IllegalStateException("The matcher is already built.");
+        if (keyword.isEmpty()) return;
+
+        var node = 0;
+        for (int i = 0; i < keyword.length(); i++) {
+            var key = key(node, Character.toLowerCase(keyword.charAt(i)));
+            var child = children.get(key);
+            if (child == null) {
+                child = fail.size();
+                children.put(key, child);
+                fail.add(0);
+                output.add(-1);
+            }
+            node = child;
+        }
+
+        keywords.add(new Keyword<>(priority, keyword.length(), value));
+        var index = keywords.size() - 1;
+        if (isBetter(index, output.get(node))) output.set(node, index);
+    }
+
+    /**
+     * @param text the text
+     * @return the value of the best identifier in the text or null if there is none
+     */
+    public T find(String text) {
+        if (!built) build();
+
+        var node = 0;
+        var best = -1;
+        for (int i = 0; i < text.length(); i++) {
+            node = next(node, Character.toLowerCase(text.charAt(i)));
+            if (isBetter(output.get(node), best)) best = output.get(node);
+        }
+        return best < 0 ? null : keywords.get(best).value();
+    }
+
+    /**
+     * @return the number of identifiers
+     */
+    public int size() {
+        return keywords.size();
+    }
+
+    /**
+     * Computes the failure links breadth first and merges the outputs of every node with the outputs of its failure node.
+     * Called by the first {@link #find(String)} if it was not called before.
+     */
+    public synchronized void build() {
+        if (built) return;
+
+        // node -> children, to walk the trie breadth first
+        var childLists = new HashMap<Integer, List<long[]>>();
+        children.forEach((key, child) -> childLists.computeIfAbsent((int) (key >>> 16), k -> new ArrayList<>()).add(new long[]{key & 0xFFFF, child}));
+
+        var queue = new ArrayDeque<Integer>();
+        for (var edge : childLists.getOrDefault(0, List.of())) queue.add((int) edge[1]);
+        while (!queue.isEmpty()) {
+            var node = queue.poll();
+            for (var edge : childLists.getOrDefault(node, List.of())) {
+                var character = (char) edge[0];
+                var child = (int) edge[1];
+                var failNode = fail.get(node);
+                while (failNode != 0 && !children.containsKey(key(failNode, character))) failNode = fail.get(failNode);
+                var failChild = children.get(key(failNode, character));
+                fail.set(child, failChild == null || failChild == child ? 0 : failChild);
+                if (isBetter(output.get(fail.get(child)), output.get(child))) output.set(child, output.get(fail.get(child)));
+                queue.add(child);
+            }
+        }
+        built = true;
+    }
+
+    private int next(int node, char character) {
+        while (true) {
+            var child = children.get(key(node, character));
+            if (child != null) return child;
+            if (node == 0) return 0;
+            node = fail.get(node);
+        }
+    }
+
+    private boolean isBetter(int keyword, int other) {
+        if (keyword < 0) return false;
+        if (other < 0) return true;
+        var a = keywords.get(keyword);
+        var b = keywords.get(other);
+        if (a.priority() != b.priority()) return a.priority() < b.priority();
+        return a.length() > b.length();
+    }
+
+    private static long key(int node, char character) {
+        return (long) node << 16 | character;
+    }
+}
@@ -8,34 +8,32 @@ import data.internalData.MavenComponent;
 import data.internalData.MavenDependency;
 import enums.MavenComponentRepositoryType;
 import logger.Logger;
+import network.HttpTransport;
 import org.apache.maven.api.model.Model;
 import org.apache.maven.model.v4.MavenStaxReader;
 import repository.ComponentRepository;
 import service.VersionResolver;
 import service.serviceImpl.MavenVersionResolver;
 import settings.Settings;
+import util.AtomicFiles;
 
 import javax.annotation.Nullable;
-import javax.xml.stream.XMLEventReader;
-import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.MalformedURLException;
 import java.net.URI;
-import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.TreeSet;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A Maven repository.
@@ -46,9 +44,16 @@ public class MavenComponentRepository implements ComponentRepository {
     private static final Logger logger = Logger.of("MavenRepository");
     private static final MavenComponentRepository instance = new MavenComponentRepository();
 
-    private final HashMap<String, TreeSet<Component>> components = new HashMap<>();
-    private final HashMap<Component, MavenComponentRepositoryType> types = new HashMap<>();
-    private final HashMap<String, String> customPomFiles = new HashMap<>();
+    private final ComponentIndex components = new ComponentIndex();
+    private final ConcurrentHashMap<Component, MavenComponentRepositoryType> types = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> customPomFiles = new ConcurrentHashMap<>();
+    // single flight: one load per coordinates, every other caller waits for the same result
+    private final ConcurrentHashMap<String, CompletableFuture<LoadResult>> loads = new ConcurrentHashMap<>();
+    private final MavenMetadataCache metadataCache = new MavenMetadataCache();
+    private final MavenRepositoryRouting routing = new MavenRepositoryRouting();
+    private final AtomicInteger downloadedPoms = new AtomicInteger();
+    private final AtomicInteger downloadedHashes = new AtomicInteger();
+    private final AtomicInteger cachedComponents = new AtomicInteger();
 
     private MavenComponentRepository() {
     }
@@ -66,14 +71,7 @@ public class MavenComponentRepository implements ComponentRepository {
         logger.info("Getting all possible versions for " + dependency.getQualifiedName());
 
         var mavenDependency = (MavenDependency) dependency;
-
-        try {
-            var urlString = getRepositoryType(dependency.getTreeParent()).getUrl() + mavenDependency.getGroupId().replace(".", "/") + "/" + mavenDependency.getArtifactId() + "/maven-metadata.xml";
-            return this.getVersions(URI.create(urlString).toURL());
-        } catch (MalformedURLException e) {
-            logger.error("Failed to get versions. " + e.getMessage());
-        }
-        return List.of();
+        return metadataCache.getVersions(getRepositoryType(dependency.getTreeParent()), mavenDependency.getGroupId(), mavenDependency.getArtifactId());
     }
 
     /**
@@ -81,107 +79,104 @@ public class MavenComponentRepository implements ComponentRepository {
      * @return the type
      */
     public MavenComponentRepositoryType getRepositoryType(Component component) {
+        if (component == null) return null;
         return this.types.get(component);
     }
 
+    @Override
+    public VersionResolver getVersionResolver() {
+        return MavenVersionResolver.getInstance();
+    }
+
     /**
-     * Returns the versions of the given URL as Strings
+     * The result of loading a component. The component is the instance the data was loaded into.
+     */
+    private record LoadResult(int status, Component component) {
+    }
+
+    /**
+     * Loads the model and the hashes of the given component.
+     * The data of each coordinates is loaded exactly once. Concurrent calls for the same coordinates wait for the load that is in flight and share its result.
      *
-     * @param url The URL to get the versions from
-     * @return The versions as Strings
+     * @param component the component
+     * @return 0 if the component was loaded, 1 if it was not found, 2 if its model could not be parsed
      */
-    private List<Version> getVersions(URL url) {
-        List<String> versions = null;
+    @Override
+    public int loadComponent(Component component) {
+        var key = component.getQualifiedName();
+        var future = new CompletableFuture<LoadResult>();
+        var inFlight = loads.putIfAbsent(key, future);
+
+        if (inFlight != null) {
+            var result = inFlight.join();
+            logger.info("component was loaded already with status " + result.status());
+            if (result.status() == 0 && result.component() != component) shareLoadedData(result.component(), component);
+            return result.status();
+        }
 
-        var factory = XMLInputFactory.newInstance();
         try {
-            XMLEventReader reader = factory.createXMLEventReader(url.openStream());
-            while (reader.hasNext()) {
-                var event = reader.nextEvent();
-                if (event.isStartElement()) {
-                    var startElement = event.asStartElement();
-                    switch (startElement.getName().toString()) {
-                        case "versioning":
-                            versions = new ArrayList<>();
-                            break;
-                        case "version":
-                            if (versions == null) break;
-                            event = reader.nextEvent();
-                            if (event.isCharacters()) {
-                                versions.add(event.asCharacters().getData());
-                            }
-                            break;
-                    }
-                }
-            }
-        } catch (IOException | XMLStreamException e) {
-            throw new RuntimeException(e);
+            var status = load(component);
+            future.complete(new LoadResult(status, component));
+            return status;
+        } catch (RuntimeException | Error e) {
+            future.complete(new LoadResult(1, component));
+            throw e;
         }
-        if (versions == null) {
-            return List.of();
-        }
-        return versions.stream().map(Version::of).collect(Collectors.toList());
     }
 
-    @Override
-    public VersionResolver getVersionResolver() {
-        return MavenVersionResolver.getInstance();
+    private void shareLoadedData(Component loaded, Component component) {
+        if (!(loaded instanceof MavenComponent mavenComponent)) return;
+        component.setData("model", mavenComponent.getModel());
+        component.setData("hashes", mavenComponent.getAllHashes());
+        var type = getRepositoryType(loaded);
+        if (type != null) types.put(component, type);
     }
 
-    HashMap<String, Integer> loadStatus = new HashMap<>();
-
-    @Override
-    public int loadComponent(Component component) {
+    private int load(Component component) {
         var start = System.currentTimeMillis();
         logger.info("Loading component " + component.getQualifiedName());
 
-        if (loadStatus.containsKey(component.getQualifiedName())) {
-            logger.info("component was loaded already with status " + loadStatus.get(component.getQualifiedName()));
-            return loadStatus.get(component.getQualifiedName());
-        }
-
         //try to load from custom pom file
         if (customPomFiles.containsKey(component.getQualifiedName())) {
             try {
                 logger.info("Loading for " + component.getQualifiedName() + " from custom POM file");
                 component.setData("model", loadModelFromPom(customPomFiles.get(component.getQualifiedName())));
                 types.put(component, MavenComponentRepositoryType.CUSTOM);
-                loadStatus.put(component.getQualifiedName(), 0);
                 return 0;
             } catch (IOException e) {
                 logger.error("Could not read custom POM file of component: " + component.getQualifiedName(), e);
-                loadStatus.put(component.getQualifiedName(), 1);
                 return 1;
             } catch (XMLStreamException e) {
                 logger.error("Could not parse custom POM file of component: " + component.getQualifiedName(), e);
-                loadStatus.put(component.getQualifiedName(), 2);
                 return 2;
             }
         }
 
-        //try to load from set type
-        int componentLoadStatus = 1;
-        if (getRepositoryType(component) != null) {
-            componentLoadStatus = loadComponent(component, getRepositoryType(component));
+        //try to load from cache
+        var cacheDir = getCacheDirectory(component);
+        try {
+            if (cacheDir != null && isComponentCached(cacheDir)) {
+                logger.info("Loading " + component.getQualifiedName() + " from cache");
+                loadFromCache(component, cacheDir);
+                cachedComponents.incrementAndGet();
+                return 0;
+            }
+        } catch (XMLStreamException | IOException e) {
+            logger.error("Could not load component from cache: " + component.getQualifiedName(), e);
         }
 
-        if (componentLoadStatus != 0) {
-            for (var type : MavenComponentRepositoryType.values()) {
-                if (type == MavenComponentRepositoryType.ROOT || type == MavenComponentRepositoryType.CUSTOM) continue;
-
-                if (type == getRepositoryType(component)) continue;
-
-                var newComponentLoadStatus = loadComponent(component, type);
-                if (newComponentLoadStatus > componentLoadStatus) {
-                    componentLoadStatus = newComponentLoadStatus;
-                }
-                if (newComponentLoadStatus == 0)
-                    componentLoadStatus = 0;
-                if (componentLoadStatus == 0) {
-                    types.put(component, type);
-                    break;
-                }
-
+        //try the learned repository of the group and the set type first, then all other repositories that did not miss the component before
+        int componentLoadStatus = 1;
+        for (var type : routing.getCandidates(component, getRepositoryType(component))) {
+            var newComponentLoadStatus = loadComponent(component, type, cacheDir);
+            if (newComponentLoadStatus > componentLoadStatus) {
+                componentLoadStatus = newComponentLoadStatus;
+            }
+            if (newComponentLoadStatus == 0) {
+                componentLoadStatus = 0;
+                types.put(component, type);
+                routing.found(type, component);
+                break;
             }
         }
 
@@ -194,40 +189,32 @@ public class MavenComponentRepository implements ComponentRepository {
                     logger.error("Could not load component " + component.getQualifiedName() + ". [error parsing model] (" + (System.currentTimeMillis() - start) + "ms)");
         }
 
-        loadStatus.put(component.getQualifiedName(), componentLoadStatus);
         return componentLoadStatus;
     }
 
-    private int loadComponent(Component component, MavenComponentRepositoryType type) {
+    private int loadComponent(Component component, MavenComponentRepositoryType type, Path cacheDir) {
         if (type == MavenComponentRepositoryType.ROOT) {
             return 1;
         }
 
-        var cacheDir = getCacheDirectory(component);
-        try {
-            if (cacheDir != null && isComponentCached(cacheDir)) {
-                logger.info("Loading " + component.getQualifiedName() + " from cache");
-                loadFromCache(component, cacheDir);
-                loadStatus.put(component.getQualifiedName(), 0);
-                return 0;
-            }
-        } catch (XMLStreamException | IOException e) {
-            logger.error("Could not load component from cache: " + component.getQualifiedName(), e);
-        }
-
         try {
             logger.info("Loading for " + component.getQualifiedName() + " from repository type " + type);
             var downloadLocation = getDownloadLocation(component, type);
-            component.setData("model", loadModel(downloadLocation + ".pom"));
-            component.setData("hashes", loadHashes(downloadLocation + ".jar"));
-            loadStatus.put(component.getQualifiedName(), 0);
-            saveToCache(cacheDir, downloadLocation);
+            // every file is downloaded once, parsed from memory and then written to the cache
+            var pom = download(downloadLocation + ".pom");
+            downloadedPoms.incrementAndGet();
+            component.setData("model", parseModel(pom));
+            var hashFiles = downloadHashes(downloadLocation + ".jar");
+            component.setData("hashes", hashFiles.entrySet().stream().map(it -> Hash.of(it.getKey(), getHashValue(it.getValue()))).toList());
+            if (cacheDir != null) saveToCache(cacheDir, pom, hashFiles);
             return 0;
+        } catch (FileNotFoundException e) {
+            routing.notFound(type, component);
+            return 1;
         } catch (IOException e) {
             return 1;
         } catch (XMLStreamException e) {
             logger.info("Could not parse POM file of component: " + component.getQualifiedName() + " in MavenRepository with type " + type + ". Trying other Repositories.");
-            loadStatus.put(component.getQualifiedName(), 2);
             return 2;
         }
     }
@@ -266,54 +253,52 @@ public class MavenComponentRepository implements ComponentRepository {
         return model;
     }
 
-    private Model loadModel(String url) throws XMLStreamException, IOException {
+    private Model parseModel(byte[] pom) throws XMLStreamException {
+        return new MavenStaxReader().read(new ByteArrayInputStream(pom));
+    }
 
-        MavenStaxReader reader = new MavenStaxReader();
-        Model model;
-        try (InputStream inputStream = URI.create(url).toURL().openStream()) {
-            model = reader.read(inputStream);
-        }
-        return model;
+    private byte[] download(String url) throws IOException {
+        return HttpTransport.getInstance().getBytes(URI.create(url));
     }
 
-    private List<Hash> loadHashes(String baseUrl) {
-        var hashes = new ArrayList<Hash>();
+    /**
+     * @param baseUrl the url of the file the hashes belong to
+     * @return the content of every hash file that exists, by algorithm
+     */
+    private Map<String, String> downloadHashes(String baseUrl) {
+        var hashFiles = new LinkedHashMap<String, String>();
         for (var algorithm : new String[]{"md5", "sha1", "sha256", "sha512"}) {
             try {
-                hashes.add(loadHash(baseUrl, algorithm));
+                hashFiles.put(algorithm, new String(download(baseUrl + "." + algorithm)).trim());
+                downloadedHashes.incrementAndGet();
             } catch (FileNotFoundException ignored) {
             } catch (IOException e) {
                 logger.error("Error getting hash", e);
             }
         }
-        return hashes;
-    }
-
-    private void saveToCache(Path cacheDir, String downloadLocation) throws IOException {
-        Files.createDirectories(cacheDir);
-        saveModelToCache(cacheDir, downloadLocation + ".pom");
-        saveHashesToCache(cacheDir, downloadLocation + ".jar");
-    }
-
-    private void saveModelToCache(Path cacheDir, String url) throws IOException {
-        try (InputStream inputStream = URI.create(url).toURL().openStream()) {
-            Files.copy(inputStream, cacheDir.resolve("model.pom"), StandardCopyOption.REPLACE_EXISTING);
-        }
+        return hashFiles;
     }
 
-    private void saveHashesToCache(Path cacheDir, String baseUrl) throws IOException {
-        for (String algorithm : new String[]{"md5", "sha1", "sha256", "sha512"}) {
-            try (InputStream inputStream = URI.create(baseUrl + "." + algorithm).toURL().openStream()) {
-                Files.copy(inputStream, cacheDir.resolve("hash." + algorithm));
-            } catch (FileNotFoundException ignored) {
+    /**
+     * Writes the downloaded files to the cache. The model is written last, because the component counts as cached as soon as its model exists.
+     */
+    private void saveToCache(Path cacheDir, byte[] pom, Map<String, String> hashFiles) {
+        try {
+            Files.createDirectories(cacheDir);
+            for (var hashFile : hashFiles.entrySet()) {
+                AtomicFiles.write(cacheDir.resolve("hash." + hashFile.getKey()), hashFile.getValue().getBytes());
             }
+            AtomicFiles.write(cacheDir.resolve("model.pom"), pom);
+        } catch (IOException e) {
+            logger.error("Could not cache component in " + cacheDir, e);
         }
     }
 
-    private Hash loadHash(String baseUrl, String algorithm) throws IOException {
-        try (InputStream inputStream = URI.create(baseUrl + "." + algorithm).toURL().openStream()) {
-            return Hash.of(algorithm, getHashValue(new String(inputStream.readAllBytes())));
-        }
+    /**
+     * @return the number of POM and hash files that were downloaded and the number of components that were loaded from the cache
+     */
+    public String getStatistics() {
+        return "downloaded POMs: " + downloadedPoms.get() + ", downloaded hashes: " + downloadedHashes.get() + ", loaded from cache: " + cachedComponents.get();
     }
 
     private String getHashValue(String value) {
@@ -322,22 +307,13 @@ public class MavenComponentRepository implements ComponentRepository {
     }
 
     @Override
-    public synchronized Component getComponent(@Nullable String groupId, String artifactId, Version version, Component parent) {
-        var key = groupId + ":" + artifactId;
-
-        if (components.containsKey(key)) {
-            var available = components.get(key).stream().filter(it -> it.getVersion().equals(version)).findFirst();
-            if (available.isPresent())
-                return available.get();
-        }
-
-        var newComponent = new MavenComponent(groupId, artifactId, version);
-        if (getRepositoryType(parent) != null) types.put(newComponent, getRepositoryType(parent));
-        else types.put(newComponent, MavenComponentRepositoryType.Central);
-
-
-        components.computeIfAbsent(key, k -> new TreeSet<>(Comparator.comparing(Component::getVersion))).add(newComponent);
-        return newComponent;
+    public Component getComponent(@Nullable String groupId, String artifactId, Version version, Component parent) {
+        return components.getOrCreate(groupId, artifactId, version, () -> {
+            var newComponent = new MavenComponent(groupId, artifactId, version);
+            if (getRepositoryType(parent) != null) types.put(newComponent, getRepositoryType(parent));
+            else types.put(newComponent, MavenComponentRepositoryType.Central);
+            return newComponent;
+        });
     }
 
     @Override
@@ -354,15 +330,12 @@ public class MavenComponentRepository implements ComponentRepository {
 
     @Override
     public List<Component> getLoadedComponents(String groupName, String artifactName) {
-        if (components.get(groupName + ":" + artifactName) == null) {
-            return List.of();
-        }
-        return new ArrayList<>(components.get(groupName + ":" + artifactName));
+        return new ArrayList<>(components.get(groupName, artifactName));
     }
 
     @Override
     public List<Component> getLoadedComponents() {
-        return this.components.values().stream().flatMap(TreeSet::stream).toList();
+        return this.components.getAll();
     }
 
 }
\ No newline at end of file
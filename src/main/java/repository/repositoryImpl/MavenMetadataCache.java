@@ -0,0 +1,229 @@
+package repository.repositoryImpl;
+
+import data.Version;
+import enums.MavenComponentRepositoryType;
+import logger.Logger;
+import network.HttpTransport;
+import settings.Settings;
+import util.AtomicFiles;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the maven-metadata.xml files of maven repositories in memory and in the data folder.
+ * <p>
+ * A cached file is used for {@link Settings#metadataCacheTtl} minutes. After that, it is revalidated with a conditional request (ETag / Last-Modified),
+ * so an unchanged file is not downloaded again. Concurrent requests for the same file share one download.
+ */
+class MavenMetadataCache {
+    private static final Logger logger = Logger.of("MavenMetadata");
+    // the factory is only configured once, creating readers from it is thread safe
+    private static final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+
+    private final ConcurrentHashMap<String, CompletableFuture<Entry>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * A cached maven-metadata.xml.
+     *
+     * @param versions     the versions listed in the file
+     * @param fetched      the time the file was downloaded or revalidated the last time
+     * @param etag         the ETag header of the file or null
+     * @param lastModified the Last-Modified header of the file or null
+     */
+    private record Entry(List<Version> versions, long fetched, String etag, String lastModified) {
+        boolean isFresh() {
+            return System.currentTimeMillis() - fetched < TimeUnit.MINUTES.toMillis(Settings.metadataCacheTtl);
+        }
+    }
+
+    /**
+     * Returns the versions of the given artifact in the given repository.
+     *
+     * @param type       the repository
+     * @param groupId    the groupId
+     * @param artifactId the artifactId
+     * @return the versions
+     * @throws RuntimeException if the metadata could not be loaded and is not cached
+     */
+    List<Version> getVersions(MavenComponentRepositoryType type, String groupId, String artifactId) {
+        var key = type.name() + ":" + groupId + ":" + artifactId;
+
+        while (true) {
+            var current = entries.get(key);
+            if (current != null && (!current.isDone() || isFresh(current))) {
+                try {
+                    return current.join().versions();
+                } catch (CompletionException e) {
+                    // the download failed, the failed future is already removed
+                    throw unwrap(e);
+                }
+            }
+
+            var future = new CompletableFuture<Entry>();
+            var replaced = current == null ? entries.putIfAbsent(key, future) == null : entries.replace(key, current, future);
+            if (!replaced) continue;
+
+            var previous = current == null || current.isCompletedExceptionally() ? null : current.join();
+            try {
+                var entry = load(type, groupId, artifactId, previous);
+                future.complete(entry);
+                return entry.versions();
+            } catch (RuntimeException e) {
+                entries.remove(key, future);
+                future.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    private static boolean isFresh(CompletableFuture<Entry> future) {
+        if (future.isCompletedExceptionally()) return false;
+        return future.join().isFresh();
+    }
+
+    private static RuntimeException unwrap(CompletionException e) {
+        return e.getCause() instanceof RuntimeException runtimeException ? runtimeException : e;
+    }
+
+    private Entry load(MavenComponentRepositoryType type, String groupId, String artifactId, Entry previous) {
+        var cacheDir = getCacheDirectory(type, groupId, artifactId);
+
+        if (previous == null && cacheDir != null) {
+            previous = loadFromCache(cacheDir);
+            if (previous != null && previous.isFresh()) {
+                logger.info("Loaded metadata of " + groupId + ":" + artifactId + " from cache.");
+                return previous;
+            }
+        }
+
+        var url = type.getUrl() + groupId.replace(".", "/") + "/" + artifactId + "/maven-metadata.xml";
+        try {
+            return download(url, cacheDir, previous);
+        } catch (IOException | XMLStreamException e) {
+            if (previous != null) {
+                logger.error("Could not revalidate metadata " + url + ". Using the cached version. " + e);
+                return previous;
+            }
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Entry download(String url, Path cacheDir, Entry previous) throws IOException, XMLStreamException {
+        var transport = HttpTransport.getInstance();
+        var request = transport.newRequest(URI.create(url)).GET();
+        if (previous != null && previous.etag() != null) request.header("If-None-Match", previous.etag());
+        if (previous != null && previous.lastModified() != null) request.header("If-Modified-Since", previous.lastModified());
+
+        var response = transport.send(request.build());
+        var status = response.statusCode();
+        if (status == HttpURLConnection.HTTP_NOT_MODIFIED && previous != null) {
+            logger.info("Metadata " + url + " is unchanged.");
+            var entry = new Entry(previous.versions(), System.currentTimeMillis(), previous.etag(), previous.lastModified());
+            if (cacheDir != null) saveProperties(cacheDir, entry);
+            return entry;
+        }
+        if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+            throw new FileNotFoundException(url);
+        }
+        if (status != HttpURLConnection.HTTP_OK) {
+            throw new IOException("Unexpected status " + status + " for " + url);
+        }
+
+        var content = response.body();
+        var headers = response.headers();
+        var entry = new Entry(parseVersions(new ByteArrayInputStream(content)), System.currentTimeMillis(), headers.firstValue("ETag").orElse(null), headers.firstValue("Last-Modified").orElse(null));
+        if (cacheDir != null) saveToCache(cacheDir, content, entry);
+        return entry;
+    }
+
+    private static List<Version> parseVersions(InputStream inputStream) throws XMLStreamException {
+        List<String> versions = null;
+
+        var reader = xmlInputFactory.createXMLEventReader(inputStream);
+        while (reader.hasNext()) {
+            var event = reader.nextEvent();
+            if (event.isStartElement()) {
+                var startElement = event.asStartElement();
+                switch (startElement.getName().toString()) {
+                    case "versioning":
+                        versions = new ArrayList<>();
+                        break;
+                    case "version":
+                        if (versions == null) break;
+                        event = reader.nextEvent();
+                        if (event.isCharacters()) {
+                            versions.add(event.asCharacters().getData());
+                        }
+                        break;
+                }
+            }
+        }
+        if (versions == null) {
+            return List.of();
+        }
+        return versions.stream().map(Version::of).toList();
+    }
+
+    private Path getCacheDirectory(MavenComponentRepositoryType type, String groupId, String artifactId) {
+        if (Settings.getDataFolder() == null) return null;
+        return Paths.get(Settings.getDataFolder().getAbsolutePath(), "maven-metadata", type.name(), groupId.replace(".", "/"), artifactId);
+    }
+
+    private Entry loadFromCache(Path cacheDir) {
+        var file = cacheDir.resolve("maven-metadata.xml");
+        var propertiesFile = cacheDir.resolve("maven-metadata.properties");
+        if (!Files.exists(file) || !Files.exists(propertiesFile)) return null;
+
+        try (var inputStream = Files.newInputStream(file); var propertiesStream = Files.newInputStream(propertiesFile)) {
+            var properties = new Properties();
+            properties.load(propertiesStream);
+            return new Entry(parseVersions(inputStream), Long.parseLong(properties.getProperty("fetched", "0")), properties.getProperty("etag"), properties.getProperty("lastModified"));
+        } catch (IOException | XMLStreamException | NumberFormatException e) {
+            logger.error("Could not load cached metadata " + file + ". " + e);
+            return null;
+        }
+    }
+
+    private void saveToCache(Path cacheDir, byte[] content, Entry entry) {
+        try {
+            Files.createDirectories(cacheDir);
+            AtomicFiles.write(cacheDir.resolve("maven-metadata.xml"), content);
+            saveProperties(cacheDir, entry);
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Could not cache metadata in " + cacheDir + ". " + e);
+        }
+    }
+
+    private void saveProperties(Path cacheDir, Entry entry) {
+        var properties = new Properties();
+        properties.setProperty("fetched", String.valueOf(entry.fetched()));
+        if (entry.etag() != null) properties.setProperty("etag", entry.etag());
+        if (entry.lastModified() != null) properties.setProperty("lastModified", entry.lastModified());
+
+        try (var outputStream = new ByteArrayOutputStream()) {
+            properties.store(outputStream, null);
+            AtomicFiles.write(cacheDir.resolve("maven-metadata.properties"), outputStream.toByteArray());
+        } catch (IOException e) {
+            logger.error("Could not cache metadata in " + cacheDir + ". " + e);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package repository.repositoryImpl;
+
+import data.Component;
+import enums.MavenComponentRepositoryType;
+import logger.Logger;
+import settings.Settings;
+import util.AtomicFiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers which maven repositories serve which artifacts, so a component is not searched in every repository again.
+ * <ul>
+ *     <li>A negative cache of artifacts that were not found in a repository. An entry expires after {@link Settings#notFoundCacheTtl} minutes.</li>
+ *     <li>A routing table from groupIds (and their first two segments, e.g. com.android) to the repository that served the last artifact of the group.</li>
+ * </ul>
+ * Both are kept in the data folder and saved when the program exits.
+ */
+class MavenRepositoryRouting {
+    private static final Logger logger = Logger.of("MavenRouting");
+    private static final String notFoundFileName = "maven-not-found.properties";
+    private static final String routesFileName = "maven-routes.properties";
+
+    // repository|groupId:artifactId:version -> expiry time
+    private final Map<String, Long> notFound = new ConcurrentHashMap<>();
+    // groupId or groupId prefix -> repository
+    private final Map<String, MavenComponentRepositoryType> routes = new ConcurrentHashMap<>();
+    private volatile boolean changed = false;
+    private volatile boolean loaded = false;
+
+    /**
+     * Loads the tables on first use, after the data folder is set.
+     */
+    private void ensureLoaded() {
+        if (loaded) return;
+        synchronized (this) {
+            if (loaded) return;
+            load();
+            Runtime.getRuntime().addShutdownHook(new Thread(this::save, "maven-routing-save"));
+            loaded = true;
+        }
+    }
+
+    /**
+     * Returns the repositories to search for the given component, in the order they should be searched.
+     * Starts with the learned repository of the group and the preferred repository, then all other repositories.
+     * Repositories that did not have the component the last time are left out.
+     *
+     * @param component the component
+     * @param preferred the repository to try first if no route is known, can be null
+     * @return the repositories to search
+     */
+    List<MavenComponentRepositoryType> getCandidates(Component component, MavenComponentRepositoryType preferred) {
+        ensureLoaded();
+        var candidates = new LinkedHashSet<MavenComponentRepositoryType>();
+        var route = getRoute(component.getGroup());
+        if (route != null) candidates.add(route);
+        if (preferred != null) candidates.add(preferred);
+        for (var type : MavenComponentRepositoryType.values()) {
+            if (type == MavenComponentRepositoryType.ROOT || type == MavenComponentRepositoryType.CUSTOM) continue;
+            candidates.add(type);
+        }
+
+        var now = System.currentTimeMillis();
+        var result = new ArrayList<MavenComponentRepositoryType>(candidates.size());
+        for (var type : candidates) {
+            var expiry = notFound.get(notFoundKey(type, component));
+            if (expiry != null && expiry > now) continue;
+            result.add(type);
+        }
+        return result;
+    }
+
+    /**
+     * Remembers that the given repository does not have the component.
+     */
+    void notFound(MavenComponentRepositoryType type, Component component) {
+        ensureLoaded();
+        notFound.put(notFoundKey(type, component), System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(Settings.notFoundCacheTtl));
+        changed = true;
+    }
+
+    /**
+     * Remembers that the given repository has the component, so other components of the group are searched there first.
+     */
+    void found(MavenComponentRepositoryType type, Component component) {
+        ensureLoaded();
+        if (notFound.remove(notFoundKey(type, component)) != null) changed = true;
+        var groupId = component.getGroup();
+        if (groupId == null) return;
+
+        if (routes.put(groupId, type) != type) changed = true;
+        var prefix = getPrefix(groupId);
+        if (prefix != null && routes.put(prefix, type) != type) changed = true;
+    }
+
+    private MavenComponentRepositoryType getRoute(String groupId) {
+        if (groupId == null) return null;
+        var route = routes.get(groupId);
+        if (route != null) return route;
+        var prefix = getPrefix(groupId);
+        return prefix == null ? null : routes.get(prefix);
+    }
+
+    /**
+     * @return the first two segments of the groupId or null if the groupId has less than three segments
+     */
+    private static String getPrefix(String groupId) {
+        var first = groupId.indexOf('.');
+        if (first < 0) return null;
+        var second = groupId.indexOf('.', first + 1);
+        if (second < 0) return null;
+        return groupId.substring(0, second);
+    }
+
+    private static String notFoundKey(MavenComponentRepositoryType type, Component component) {
+        return type.name() + "|" + component.getQualifiedName();
+    }
+
+    private void load() {
+        var dataFolder = Settings.getDataFolder();
+        if (dataFolder == null) return;
+
+        var now = System.currentTimeMillis();
+        loadProperties(dataFolder.toPath().resolve(notFoundFileName)).forEach((key, value) -> {
+            try {
+                var expiry = Long.parseLong((String) value);
+                if (expiry > now) notFound.put((String) key, expiry);
+            } catch (NumberFormatException ignored) {
+            }
+        });
+        loadProperties(dataFolder.toPath().resolve(routesFileName)).forEach((key, value) -> {
+            try {
+                routes.put((String) key, MavenComponentRepositoryType.valueOf((String) value));
+            } catch (IllegalArgumentException ignored) {
+            }
+        });
+    }
+
+    private Properties loadProperties(Path file) {
+        var properties = new Properties();
+        if (!Files.exists(file)) return properties;
+        try (var inputStream = Files.newInputStream(file)) {
+            properties.load(inputStream);
+        } catch (IOException e) {
+            logger.error("Could not load " + file + ". " + e);
+        }
+        return properties;
+    }
+
+    private void save() {
+        var dataFolder = Settings.getDataFolder();
+        if (dataFolder == null || !changed) return;
+
+        var now = System.currentTimeMillis();
+        var notFoundProperties = new Properties();
+        notFound.forEach((key, expiry) -> {
+            if (expiry > now) notFoundProperties.setProperty(key, String.valueOf(expiry));
+        });
+        var routesProperties = new Properties();
+        routes.forEach((key, type) -> routesProperties.setProperty(key, type.name()));
+
+        saveProperties(dataFolder.toPath().resolve(notFoundFileName), notFoundProperties);
+        saveProperties(dataFolder.toPath().resolve(routesFileName), routesProperties);
+    }
+
+    private void saveProperties(Path file, Properties properties) {
+        try (var outputStream = new ByteArrayOutputStream()) {
+            properties.store(outputStream, null);
+            AtomicFiles.write(file, outputStream.toByteArray());
+        } catch (IOException e) {
+            logger.error("Could not save " + file + ". " + e);
+        }
+    }
+}
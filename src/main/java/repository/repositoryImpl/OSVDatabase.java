@@ -0,0 +1,466 @@
+package repository.repositoryImpl;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import data.Version;
+import data.internalData.VersionIntervalIndex;
+import data.internalData.VersionIntervalIndex.Interval;
+import logger.Logger;
+import util.AtomicFiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipInputStream;
+
+/**
+ * A local copy of an OSV ecosystem export (the all.zip of an ecosystem, e.g. https://osv-vulnerabilities.storage.googleapis.com/Maven/all.zip),
+ * so vulnerabilities can be looked up without the network.
+ * <p>
+ * The import writes two files to the given folder:
+ * <ul>
+ *     <li>advisories*.bin: the json of every advisory. New and changed advisories are appended, the file is compacted into a new file when more than half of it is outdated.</li>
+ *     <li>index.bin: the name of the advisories file, the id, modified timestamp and position of every advisory and, per package name, the affected versions and version ranges of every advisory.</li>
+ * </ul>
+ * The index is replaced atomically and a compacted advisories file is only deleted after the index that points into it was replaced, so an interrupted import never leaves an index with wrong positions.
+ * The ranges are resolved from the OSV events into intervals during the import. The index is memory mapped, the entries of a package are read into a {@link VersionIntervalIndex} on its first lookup.
+ * A re-import only parses the advisories whose modified timestamp changed, an unchanged export is skipped completely.
+ */
+class OSVDatabase {
+    private static final Logger logger = Logger.of("OSVDatabase");
+    private static final int magic = 0x4F535649;
+    private static final int formatVersion = 2;
+    private static final byte hasStart = 1;
+    private static final byte hasEnd = 2;
+    private static final byte endInclusive = 4;
+
+    private final Path folder;
+    private final Path indexFile;
+    // the advisories file of the current index, a compaction writes a new one
+    private Path advisoriesFile;
+
+    private MappedByteBuffer index;
+    private FileChannel advisories;
+    private String[] ids = new String[0];
+    private long[] offsets = new long[0];
+    private int[] lengths = new int[0];
+    private final Map<String, Integer> idIndex = new HashMap<>();
+    // package name -> position of its entries in the index
+    private final Map<String, Integer> packagePositions = new HashMap<>();
+    // the entries of the packages that were queried, with parsed versions
+    private final VersionIntervalIndex intervalIndex = new VersionIntervalIndex();
+
+    private record Affected(String packageName, List<String> versions, List<Interval> ranges) {
+    }
+
+    private record Advisory(String id, long modified, long offset, int length, List<Affected> affected) {
+    }
+
+    OSVDatabase(Path folder) {
+        this.folder = folder;
+        this.indexFile = folder.resolve("index.bin");
+        this.advisoriesFile = folder.resolve("advisories.bin");
+    }
+
+    /**
+     * Imports the given OSV export. Advisories that did not change since the last import are not parsed again, advisories that are not part of the export anymore are removed.
+     * Has to be called before {@link #load()}.
+     *
+     * @param export the zip file
+     * @throws IOException if the export could not be read or the database could not be written
+     */
+    void importExport(Path export) throws IOException {
+        var start = System.currentTimeMillis();
+        var exportSize = Files.size(export);
+        var exportModified = Files.getLastModifiedTime(export).toMillis();
+
+        var previous = readIndex();
+        var previousAdvisories = previous == null ? Map.<String, Advisory>of() : previous.advisories();
+        if (previous != null && previous.exportSize() == exportSize && previous.exportModified() == exportModified) {
+            logger.info("OSV database is up to date with " + export + ".");
+            return;
+        }
+        // appending keeps the positions of the previous index valid until the new one is written
+        if (previous != null) advisoriesFile = previous.advisoriesFile();
+
+        Files.createDirectories(folder);
+        var advisories = new LinkedHashMap<String, Advisory>();
+        var changed = 0;
+        try (var zip = new ZipInputStream(Files.newInputStream(export));
+             var out = FileChannel.open(advisoriesFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            var position = out.size();
+            for (var entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                if (entry.isDirectory() || !entry.getName().endsWith(".json")) continue;
+                var content = zip.readAllBytes();
+
+                var header = readHeader(content);
+                if (header == null) {
+                    logger.error("Skipping " + entry.getName() + ", it has no id.");
+                    continue;
+                }
+                var existing = previousAdvisories.get(header.id());
+                if (existing != null && existing.modified() == header.modified()) {
+                    advisories.put(existing.id(), existing);
+                    continue;
+                }
+
+                var affected = parseAffected(JsonParser.parseString(new String(content, StandardCharsets.UTF_8)).getAsJsonObject());
+                writeFully(out, ByteBuffer.wrap(content), position);
+                advisories.put(header.id(), new Advisory(header.id(), header.modified(), position, content.length, affected));
+                position += content.length;
+                changed++;
+            }
+            // the new index must not point to advisories that were not written yet
+            out.force(true);
+        }
+
+        var removed = previousAdvisories.keySet().stream().filter(id -> !advisories.containsKey(id)).count();
+        var liveBytes = advisories.values().stream().mapToLong(Advisory::length).sum();
+        var previousFile = advisoriesFile;
+        if (Files.size(advisoriesFile) > 2 * liveBytes) {
+            advisoriesFile = compact(advisories);
+        }
+        try {
+            writeIndex(advisories, exportSize, exportModified);
+        } catch (IOException e) {
+            // the previous index still points into the previous file
+            if (!advisoriesFile.equals(previousFile)) Files.deleteIfExists(advisoriesFile);
+            advisoriesFile = previousFile;
+            throw e;
+        }
+        deleteUnusedAdvisoryFiles();
+
+        logger.success("Imported " + export + ": " + advisories.size() + " advisories, " + changed + " new or changed, " + removed + " removed (" + (System.currentTimeMillis() - start) + "ms)");
+    }
+
+    /**
+     * Maps the index into memory. Does nothing if there is no index.
+     *
+     * @return false if there is no imported database
+     */
+    boolean load() throws IOException {
+        if (!Files.exists(indexFile)) return false;
+
+        try (var channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            index = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        var buffer = index.duplicate();
+        if (buffer.getInt() != magic || buffer.getInt() != formatVersion) throw new IOException("Unknown format of " + indexFile);
+        buffer.getLong();
+        buffer.getLong();
+        advisoriesFile = folder.resolve(readString(buffer));
+        if (!Files.exists(advisoriesFile)) return false;
+        advisories = FileChannel.open(advisoriesFile, StandardOpenOption.READ);
+
+        var advisoryCount = buffer.getInt();
+        ids = new String[advisoryCount];
+        offsets = new long[advisoryCount];
+        lengths = new int[advisoryCount];
+        for (int i = 0; i < advisoryCount; i++) {
+            ids[i] = readString(buffer);
+            buffer.getLong();
+            offsets[i] = buffer.getLong();
+            lengths[i] = buffer.getInt();
+            idIndex.put(ids[i], i);
+        }
+
+        var packageCount = buffer.getInt();
+        for (int i = 0; i < packageCount; i++) {
+            var name = readString(buffer);
+            var length = buffer.getInt();
+            packagePositions.put(name, buffer.position());
+            buffer.position(buffer.position() + length);
+        }
+
+        logger.info("Loaded OSV database with " + advisoryCount + " advisories for " + packageCount + " packages.");
+        return true;
+    }
+
+    /**
+     * @param packageName the package name, for maven groupId:artifactId
+     * @param version     the version
+     * @return the ids of the advisories that affect the version of the package
+     */
+    List<String> query(String packageName, Version version) {
+        var position = packagePositions.get(packageName);
+        if (position == null) return List.of();
+
+        synchronized (intervalIndex) {
+            if (!intervalIndex.contains(packageName)) {
+                var buffer = index.duplicate().position(position);
+                var count = buffer.getInt();
+                for (int i = 0; i < count; i++) {
+                    var affected = readAffected(buffer, packageName);
+                    intervalIndex.add(packageName, ids[buffer.getInt()], affected.versions(), affected.ranges());
+                }
+            }
+        }
+        return intervalIndex.query(packageName, version);
+    }
+
+    /**
+     * @param id the id of the advisory
+     * @return the json of the advisory or null if it is not part of the database
+     */
+    JsonObject getAdvisory(String id) throws IOException {
+        var i = idIndex.get(id);
+        if (i == null) return null;
+        var buffer = ByteBuffer.allocate(lengths[i]);
+        while (buffer.hasRemaining()) {
+            if (advisories.read(buffer, offsets[i] + buffer.position()) < 0) throw new IOException("Unexpected end of " + advisoriesFile);
+        }
+        return JsonParser.parseString(new String(buffer.array(), StandardCharsets.UTF_8)).getAsJsonObject();
+    }
+
+    private record Header(String id, long modified) {
+    }
+
+    /**
+     * Reads only the id and the modified timestamp of an advisory, without building the json tree.
+     */
+    private static Header readHeader(byte[] content) throws IOException {
+        String id = null;
+        var modified = 0L;
+        try (var reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext() && (id == null || modified == 0)) {
+                switch (reader.nextName()) {
+                    case "id" -> id = reader.nextString();
+                    case "modified" -> modified = parseTimestamp(reader.nextString());
+                    default -> reader.skipValue();
+                }
+            }
+        }
+        return id == null ? null : new Header(id, modified);
+    }
+
+    private static long parseTimestamp(String timestamp) {
+        try {
+            return Instant.parse(timestamp).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Resolves the ranges into intervals, see {@link VersionIntervalIndex#parseRanges(JsonObject)}.
+     */
+    private static List<Affected> parseAffected(JsonObject advisory) {
+        var result = new ArrayList<Affected>();
+        if (!advisory.has("affected")) return result;
+
+        for (var affectedElement : advisory.get("affected").getAsJsonArray()) {
+            var affected = affectedElement.getAsJsonObject();
+            if (!affected.has("package")) continue;
+            var packageName = affected.get("package").getAsJsonObject().get("name").getAsString();
+
+            var versions = new ArrayList<String>();
+            if (affected.has("versions")) affected.get("versions").getAsJsonArray().forEach(version -> versions.add(version.getAsString()));
+
+            result.add(new Affected(packageName, versions, VersionIntervalIndex.parseRanges(affected)));
+        }
+        return result;
+    }
+
+    private record Index(long exportSize, long exportModified, Path advisoriesFile, Map<String, Advisory> advisories) {
+    }
+
+    /**
+     * Reads the complete index, to reuse the entries of unchanged advisories in an import.
+     *
+     * @return the index or null if there is none
+     */
+    private Index readIndex() throws IOException {
+        if (!Files.exists(indexFile)) return null;
+
+        var buffer = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+        if (buffer.getInt() != magic || buffer.getInt() != formatVersion) {
+            logger.info("Unknown format of " + indexFile + ", importing everything again.");
+            return null;
+        }
+        var exportSize = buffer.getLong();
+        var exportModified = buffer.getLong();
+        var dataFile = folder.resolve(readString(buffer));
+        if (!Files.exists(dataFile)) {
+            logger.info(dataFile + " is missing, importing everything again.");
+            return null;
+        }
+
+        var count = buffer.getInt();
+        var advisories = new ArrayList<Advisory>(count);
+        for (int i = 0; i < count; i++) {
+            advisories.add(new Advisory(readString(buffer), buffer.getLong(), buffer.getLong(), buffer.getInt(), new ArrayList<>()));
+        }
+
+        var packageCount = buffer.getInt();
+        for (int i = 0; i < packageCount; i++) {
+            var name = readString(buffer);
+            buffer.getInt();
+            var entries = buffer.getInt();
+            for (int j = 0; j < entries; j++) {
+                var affected = readAffected(buffer, name);
+                advisories.get(buffer.getInt()).affected().add(affected);
+            }
+        }
+
+        var result = new HashMap<String, Advisory>();
+        advisories.forEach(advisory -> result.put(advisory.id(), advisory));
+        return new Index(exportSize, exportModified, dataFile, result);
+    }
+
+    private void writeIndex(Map<String, Advisory> advisories, long exportSize, long exportModified) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+        out.writeInt(magic);
+        out.writeInt(formatVersion);
+        out.writeLong(exportSize);
+        out.writeLong(exportModified);
+        writeString(out, advisoriesFile.getFileName().toString());
+
+        // sorted, so the same export always results in the same index
+        var sorted = new ArrayList<>(new TreeMap<>(advisories).values());
+        var packages = new TreeMap<String, List<Map.Entry<Integer, Affected>>>();
+        out.writeInt(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            var advisory = sorted.get(i);
+            writeString(out, advisory.id());
+            out.writeLong(advisory.modified());
+            out.writeLong(advisory.offset());
+            out.writeInt(advisory.length());
+            for (var affected : advisory.affected()) {
+                packages.computeIfAbsent(affected.packageName(), k -> new ArrayList<>()).add(Map.entry(i, affected));
+            }
+        }
+
+        out.writeInt(packages.size());
+        for (var entry : packages.entrySet()) {
+            var entryBytes = new ByteArrayOutputStream();
+            var entryOut = new DataOutputStream(entryBytes);
+            entryOut.writeInt(entry.getValue().size());
+            for (var affected : entry.getValue()) {
+                writeAffected(entryOut, affected.getValue());
+                entryOut.writeInt(affected.getKey());
+            }
+            entryOut.flush();
+
+            writeString(out, entry.getKey());
+            out.writeInt(entryBytes.size());
+            entryBytes.writeTo(out);
+        }
+        out.flush();
+
+        AtomicFiles.write(indexFile, bytes.toByteArray());
+    }
+
+    /**
+     * Copies the given advisories into a new advisories file and updates their offsets.
+     * The current file is left untouched, it is still used by the current index.
+     *
+     * @return the new advisories file
+     */
+    private Path compact(Map<String, Advisory> advisories) throws IOException {
+        var compactedFile = Files.createTempFile(folder, "advisories-", ".bin");
+        var success = false;
+        try {
+            try (var in = FileChannel.open(advisoriesFile, StandardOpenOption.READ);
+                 var out = FileChannel.open(compactedFile, StandardOpenOption.WRITE)) {
+                var position = 0L;
+                for (var entry : advisories.entrySet()) {
+                    var advisory = entry.getValue();
+                    var buffer = ByteBuffer.allocate(advisory.length());
+                    while (buffer.hasRemaining()) {
+                        if (in.read(buffer, advisory.offset() + buffer.position()) < 0) throw new IOException("Unexpected end of " + advisoriesFile);
+                    }
+                    buffer.flip();
+                    writeFully(out, buffer, position);
+                    entry.setValue(new Advisory(advisory.id(), advisory.modified(), position, advisory.length(), advisory.affected()));
+                    position += advisory.length();
+                }
+                out.force(true);
+            }
+            success = true;
+            return compactedFile;
+        } finally {
+            if (!success) Files.deleteIfExists(compactedFile);
+        }
+    }
+
+    /**
+     * Deletes the advisories files that are not used by the current index anymore, also the ones left by an interrupted import.
+     */
+    private void deleteUnusedAdvisoryFiles() throws IOException {
+        try (var files = Files.newDirectoryStream(folder, "advisories*.bin")) {
+            for (var file : files) {
+                if (!file.equals(advisoriesFile)) Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void writeAffected(DataOutputStream out, Affected affected) throws IOException {
+        out.writeInt(affected.versions().size());
+        for (var version : affected.versions()) {
+            writeString(out, version);
+        }
+        out.writeInt(affected.ranges().size());
+        for (var range : affected.ranges()) {
+            var flags = (byte) ((range.start() != null ? hasStart : 0) | (range.end() != null ? hasEnd : 0) | (range.endInclusive() ? endInclusive : 0));
+            out.writeByte(flags);
+            if (range.start() != null) writeString(out, range.start().version());
+            if (range.end() != null) writeString(out, range.end().version());
+        }
+    }
+
+    private static Affected readAffected(ByteBuffer buffer, String packageName) {
+        var versionCount = buffer.getInt();
+        var versions = new ArrayList<String>(versionCount);
+        for (int i = 0; i < versionCount; i++) {
+            versions.add(readString(buffer));
+        }
+        var rangeCount = buffer.getInt();
+        var ranges = new ArrayList<Interval>(rangeCount);
+        for (int i = 0; i < rangeCount; i++) {
+            var flags = buffer.get();
+            var start = (flags & hasStart) != 0 ? Version.of(readString(buffer)) : null;
+            var end = (flags & hasEnd) != 0 ? Version.of(readString(buffer)) : null;
+            ranges.add(new Interval(start, end, (flags & endInclusive) != 0));
+        }
+        return new Affected(packageName, versions, ranges);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        var bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
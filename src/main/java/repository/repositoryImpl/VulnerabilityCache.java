@@ -0,0 +1,97 @@
+package repository.repositoryImpl;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import data.Component;
+import data.internalData.OSVAdvisory;
+import logger.Logger;
+import settings.Settings;
+import util.AtomicFiles;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the vulnerabilities of components in the data folder, keyed by the purl of the component.
+ * <p>
+ * An entry holds the OSV json of every vulnerability (the fields kept by {@link OSVAdvisory}), so the vulnerabilities can be created again without the network.
+ * It is used for {@link Settings#vulnerabilityCacheTtl} minutes. With {@link Settings#refreshVulnerabilities}, cached entries are ignored and replaced.
+ */
+class VulnerabilityCache {
+    private static final Logger logger = Logger.of("VulnerabilityCache");
+
+    /**
+     * @param purl       the purl of the component
+     * @param fetched    the time the vulnerabilities were queried
+     * @param advisories the OSV json of the vulnerabilities
+     */
+    record Entry(String purl, long fetched, List<JsonObject> advisories) {
+        boolean isFresh() {
+            return System.currentTimeMillis() - fetched < TimeUnit.MINUTES.toMillis(Settings.vulnerabilityCacheTtl);
+        }
+    }
+
+    /**
+     * The purl the vulnerabilities of a component are queried with. Vulnerabilities are always queried in the maven ecosystem.
+     */
+    static String getPurl(Component component) {
+        return "pkg:maven/" + component.getGroup() + "/" + component.getArtifactId() + "@" + (component.getVersion() == null ? null : component.getVersion().version());
+    }
+
+    /**
+     * @param component the component
+     * @return the fresh cached vulnerabilities of the component or null if there are none
+     */
+    Entry get(Component component) {
+        var file = getFile(component);
+        if (Settings.refreshVulnerabilities || file == null || !Files.exists(file)) return null;
+
+        try {
+            var data = JsonParser.parseString(Files.readString(file)).getAsJsonObject();
+            var entry = new Entry(data.get("purl").getAsString(), data.get("fetched").getAsLong(), new ArrayList<>());
+            data.get("vulnerabilities").getAsJsonArray().forEach(it -> entry.advisories().add(it.getAsJsonObject()));
+            if (entry.purl().equals(getPurl(component)) && entry.isFresh()) return entry;
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not read cached vulnerabilities " + file + ". " + e);
+        }
+        return null;
+    }
+
+    /**
+     * Saves the vulnerabilities of the component.
+     */
+    void put(Component component, List<OSVAdvisory> advisories) {
+        var file = getFile(component);
+        if (file == null) return;
+
+        var data = new JsonObject();
+        data.addProperty("purl", getPurl(component));
+        data.addProperty("fetched", System.currentTimeMillis());
+        var array = new JsonArray();
+        advisories.forEach(advisory -> array.add(advisory.toJson()));
+        data.add("vulnerabilities", array);
+
+        try {
+            Files.createDirectories(file.getParent());
+            AtomicFiles.write(file, data.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.error("Could not cache vulnerabilities in " + file + ". " + e);
+        }
+    }
+
+    private static Path getFile(Component component) {
+        if (Settings.getDataFolder() == null || component.getGroup() == null || component.getArtifactId() == null || component.getVersion() == null) return null;
+        return Paths.get(Settings.getDataFolder().getAbsolutePath(), "vulnerabilities", "maven", component.getGroup(), component.getArtifactId(), sanitize(component.getVersion().version()) + ".json");
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^A-Za-z0-9._+-]", "_");
+    }
+}
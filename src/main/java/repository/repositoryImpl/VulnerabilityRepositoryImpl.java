@@ -1,25 +1,51 @@
 package repository.repositoryImpl;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import data.Component;
 import data.Vulnerability;
+import data.VulnerabilitySet;
+import data.internalData.OSVAdvisory;
 import data.internalData.OSVVulnerability;
 import logger.Logger;
+import network.HttpTransport;
 import repository.VulnerabilityRepository;
+import settings.Settings;
+import util.CrawlExecutors;
 
+import java.io.IOException;
 import java.net.URI;
-import java.net.http.HttpClient;
+import java.net.URLEncoder;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class VulnerabilityRepositoryImpl implements VulnerabilityRepository {
     private static final Logger logger = Logger.of("Vul_Service");
 
-    String baseUrl = "https://api.osv.dev/v1/query";
     List<Vulnerability> readVulnerabilities = new ArrayList<>();
-    HttpClient client = HttpClient.newHttpClient();
+
+    // purl -> ids of the vulnerabilities of the component
+    private final Map<String, List<String>> resolvedIds = new ConcurrentHashMap<>();
+    // id -> the newest OSV entry, shared by all components it affects
+    private final Map<String, OSVAdvisory> advisories = new ConcurrentHashMap<>();
+    private final VulnerabilityCache cache = new VulnerabilityCache();
+    private volatile OSVDatabase database;
 
     static VulnerabilityRepositoryImpl instance = new VulnerabilityRepositoryImpl();
 
@@ -35,51 +61,31 @@ public class VulnerabilityRepositoryImpl implements VulnerabilityRepository {
     public List<Vulnerability> getVulnerabilities(Component component) {
         var start = System.currentTimeMillis();
         var vulnerabilities = new ArrayList<Vulnerability>();
+        var key = getKey(component);
 
-        StringBuilder body = new StringBuilder();
-        body.append("{\"version\": \"")
-                .append(component.getVersion().version())
-                .append("\", \"package\": {\"name\": \"")
-                .append(component.getGroup())
-                .append(":")
-                .append(component.getArtifactId())
-                .append("\", \"ecosystem\": \"Maven\"}}");
         try {
-            var httpRequest = client.send(HttpRequest.newBuilder()
-                            .uri(URI.create(baseUrl))
-                            .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
-                            .build()
-                    , HttpResponse.BodyHandlers.ofString());
-
-            if (httpRequest.statusCode() == 200) {
-                var vulnerabilityData = JsonParser.parseString(httpRequest.body()).getAsJsonObject();
-                if (vulnerabilityData.has("vulns"))
-                    for (var vulnerability : vulnerabilityData.get("vulns").getAsJsonArray())
-                        vulnerabilities.add(new OSVVulnerability(component, vulnerability.getAsJsonObject()));
-            } else {
-                throw new RuntimeException("Failed to get vulnerabilities from " + component.getQualifiedName() + ". Response code: " + httpRequest.statusCode());
+            var ids = resolvedIds.get(key);
+            if (ids == null && !Settings.osvOffline) ids = loadFromCache(component);
+            var queried = false;
+            if (ids == null) {
+                ids = Settings.osvOffline ? getDatabase().query(component.getGroup() + ":" + component.getArtifactId(), component.getVersion()) : query(component);
+                resolvedIds.put(key, ids);
+                queried = !Settings.osvOffline;
             }
-//            HttpURLConnection connection = (HttpURLConnection) URI.create(baseUrl).toURL().openConnection();
-//            connection.setDoOutput(true);
-//            connection.setRequestMethod("POST");
-//            connection.setRequestProperty("Content-Type", "application/json");
-//
-//            connection.setRequestProperty("Content-Length", String.valueOf(body.length()));
-//            connection.getOutputStream().write(body.toString().getBytes());
-//            connection.getOutputStream().flush();
-//
-//            connection.disconnect();
-//
-//            int responseCode = connection.getResponseCode();
-//            if (responseCode == HttpURLConnection.HTTP_OK) {
-//                var inputStream = connection.getInputStream();
-//                var vulnerabilityData = JsonParser.parseReader(new InputStreamReader(inputStream)).getAsJsonObject();
-//                if (vulnerabilityData.has("vulns"))
-//                    for (var vulnerability : vulnerabilityData.get("vulns").getAsJsonArray())
-//                        vulnerabilities.add(new OSVVulnerability(component, vulnerability.getAsJsonObject()));
-//            }
-
-
+            for (var id : ids) {
+                var advisory = advisories.get(id);
+                if (advisory == null) {
+                    if (Settings.osvOffline) {
+                        var data = getDatabase().getAdvisory(id);
+                        if (data == null) throw new IOException("Vulnerability " + id + " is missing in the OSV database.");
+                        advisory = intern(data);
+                    } else {
+                        advisory = loadAdvisory(id);
+                    }
+                }
+                vulnerabilities.add(new OSVVulnerability(component, advisory));
+            }
+            if (queried) cache.put(component, ids.stream().map(advisories::get).toList());
         } catch (Exception e) {
             logger.error("Failed to get vulnerabilities from" + component.getQualifiedName() + ". (" + (System.currentTimeMillis() - start) + " ms)", e);
         }
@@ -93,18 +99,417 @@ public class VulnerabilityRepositoryImpl implements VulnerabilityRepository {
         return vulnerabilities;
     }
 
+    /**
+     * Loads the vulnerabilities of the component from the cache in the data folder.
+     *
+     * @return the ids of the vulnerabilities or null if they are not cached
+     */
+    private List<String> loadFromCache(Component component) {
+        var entry = cache.get(component);
+        if (entry == null) return null;
+
+        var ids = new ArrayList<String>(entry.advisories().size());
+        for (var data : entry.advisories()) {
+            ids.add(intern(data).getId());
+        }
+        resolvedIds.put(getKey(component), ids);
+        return ids;
+    }
+
+    /**
+     * Opens the local OSV database on first use and imports {@link Settings#osvExport} into it, if it is set.
+     */
+    private OSVDatabase getDatabase() throws IOException {
+        if (database != null) return database;
+        synchronized (this) {
+            if (database != null) return database;
+            var newDatabase = new OSVDatabase(Settings.getDataFolder().toPath().resolve("osv"));
+            if (Settings.osvExport != null) newDatabase.importExport(Path.of(Settings.osvExport));
+            if (!newDatabase.load()) throw new IOException("There is no local OSV database. Import an OSV export with --osv-offline <all.zip> first.");
+            database = newDatabase;
+            return database;
+        }
+    }
+
+    /**
+     * Queries the vulnerabilities of a single component. The complete entries are part of the response, so they are cached as well.
+     *
+     * @return the ids of the vulnerabilities
+     */
+    private List<String> query(Component component) throws IOException {
+        var response = post("/v1/query", createQuery(component, null));
+        var ids = new ArrayList<String>();
+        if (response.has("vulns")) {
+            for (var vulnerability : response.get("vulns").getAsJsonArray()) {
+                ids.add(intern(vulnerability.getAsJsonObject()).getId());
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public void loadVulnerabilities(Collection<? extends Component> components) {
+        // local lookups do not need to be batched
+        if (Settings.osvOffline) return;
+
+        var start = System.currentTimeMillis();
+
+        var pending = new LinkedHashMap<String, Component>();
+        var cached = 0;
+        for (var component : components) {
+            if (component.getGroup() == null || component.getArtifactId() == null || component.getVersion() == null) continue;
+            var key = getKey(component);
+            if (resolvedIds.containsKey(key) || pending.containsKey(key)) continue;
+            if (loadFromCache(component) != null) cached++;
+            else pending.put(key, component);
+        }
+        if (pending.isEmpty()) {
+            if (cached > 0) logger.success("Loaded vulnerabilities of " + cached + " components from cache (" + (System.currentTimeMillis() - start) + "ms)");
+            return;
+        }
+
+        BatchResult result;
+        try {
+            result = queryBatches(pending);
+        } catch (Exception e) {
+            logger.error("Failed to query vulnerabilities in batches. The remaining components are queried one by one.", e);
+            return;
+        }
+
+        var ids = new LinkedHashSet<String>();
+        result.found().values().forEach(it -> ids.addAll(it.keySet()));
+        ids.removeAll(advisories.keySet());
+        var hydrated = hydrate(ids);
+
+        // components are only marked as resolved if all of their vulnerabilities could be loaded
+        for (var key : pending.keySet()) {
+            var componentIds = List.copyOf(result.found().getOrDefault(key, Map.of()).keySet());
+            if (!advisories.keySet().containsAll(componentIds)) continue;
+            resolvedIds.put(key, componentIds);
+            cache.put(pending.get(key), componentIds.stream().map(advisories::get).toList());
+        }
+
+        logger.success("Queried vulnerabilities of " + pending.size() + " components in " + result.batches() + " batches and loaded " + hydrated + " vulnerabilities, " + cached + " components were cached (" + (System.currentTimeMillis() - start) + "ms)");
+    }
+
+    /**
+     * @param found   purl -> id -> modified timestamp of the vulnerabilities of every queried component
+     * @param batches the number of requests
+     */
+    private record BatchResult(Map<String, Map<String, String>> found, int batches) {
+    }
+
+    /**
+     * Queries the ids and modified timestamps of the vulnerabilities of the given components with querybatch requests of {@link Settings#vulnerabilityBatchSize} components.
+     * The requests of a round are sent in parallel with up to {@link Settings#vulnerabilityThreads} threads, results with more pages are queried in the next round.
+     *
+     * @param components purl -> component
+     */
+    private BatchResult queryBatches(Map<String, Component> components) throws IOException {
+        var found = new LinkedHashMap<String, Map<String, String>>();
+        var batches = 0;
+        // purl -> page token of the next page of results
+        var queries = new LinkedHashMap<String, String>();
+        components.keySet().forEach(key -> queries.put(key, null));
+
+        var threads = Math.max(1, Math.min((components.size() + Settings.vulnerabilityBatchSize - 1) / Settings.vulnerabilityBatchSize, Settings.vulnerabilityThreads));
+        var executor = CrawlExecutors.newStageExecutor("osv-batch", threads);
+        try {
+            while (!queries.isEmpty()) {
+                var round = new ArrayList<List<Map.Entry<String, String>>>();
+                var batch = new ArrayList<Map.Entry<String, String>>();
+                for (var entry : queries.entrySet()) {
+                    if (batch.size() == Settings.vulnerabilityBatchSize) {
+                        round.add(batch);
+                        batch = new ArrayList<>();
+                    }
+                    batch.add(new AbstractMap.SimpleImmutableEntry<>(entry));
+                }
+                round.add(batch);
+                queries.clear();
+
+                var futures = new ArrayList<Future<JsonArray>>(round.size());
+                for (var roundBatch : round) {
+                    futures.add(executor.submit(() -> postBatch(roundBatch, components)));
+                }
+                // the results are merged in the order of the batches, so the result does not depend on the order the responses arrive in
+                for (int i = 0; i < round.size(); i++) {
+                    mergeBatch(round.get(i), getBatch(futures.get(i)), found, queries);
+                    batches++;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return new BatchResult(found, batches);
+    }
+
+    private static JsonArray getBatch(Future<JsonArray> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while querying vulnerabilities.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) throw ioException;
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Sends one querybatch request.
+     *
+     * @return the results, one per query of the batch
+     */
+    private JsonArray postBatch(List<Map.Entry<String, String>> batch, Map<String, Component> components) throws IOException {
+        var queryArray = new JsonArray();
+        for (var entry : batch) {
+            queryArray.add(createQuery(components.get(entry.getKey()), entry.getValue()));
+        }
+        var body = new JsonObject();
+        body.add("queries", queryArray);
+
+        var results = post("/v1/querybatch", body).get("results").getAsJsonArray();
+        if (results.size() != batch.size()) {
+            throw new IOException("Expected " + batch.size() + " results, got " + results.size());
+        }
+        return results;
+    }
+
+    /**
+     * Adds the results of a querybatch request. Results with more pages are added to the queries again, with their page token.
+     */
+    private static void mergeBatch(List<Map.Entry<String, String>> batch, JsonArray results, Map<String, Map<String, String>> found, Map<String, String> queries) {
+        for (int i = 0; i < batch.size(); i++) {
+            var key = batch.get(i).getKey();
+            var result = results.get(i).getAsJsonObject();
+            var ids = found.computeIfAbsent(key, k -> new LinkedHashMap<>());
+            if (result.has("vulns")) {
+                for (var vulnerabilityElement : result.get("vulns").getAsJsonArray()) {
+                    var vulnerability = vulnerabilityElement.getAsJsonObject();
+                    var modified = vulnerability.get("modified");
+                    ids.put(vulnerability.get("id").getAsString(), modified == null || modified.isJsonNull() ? null : modified.getAsString());
+                }
+            }
+            if (result.has("next_page_token")) {
+                queries.put(key, result.get("next_page_token").getAsString());
+            }
+        }
+    }
+
+    /**
+     * Loads the complete entries of the given vulnerabilities with {@link Settings#vulnerabilityThreads} parallel requests.
+     *
+     * @return the number of loaded entries
+     */
+    private int hydrate(Set<String> ids) {
+        if (ids.isEmpty()) return 0;
+
+        var executor = CrawlExecutors.newStageExecutor("osv", Math.min(ids.size(), Settings.vulnerabilityThreads));
+        try {
+            var futures = new LinkedHashMap<String, Future<OSVAdvisory>>();
+            for (var id : ids) {
+                futures.put(id, executor.submit(() -> loadAdvisory(id)));
+            }
+
+            var loaded = 0;
+            for (var entry : futures.entrySet()) {
+                try {
+                    entry.getValue().get();
+                    loaded++;
+                } catch (ExecutionException e) {
+                    logger.error("Could not load vulnerability " + entry.getKey() + ". " + e.getCause());
+                }
+            }
+            return loaded;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while loading vulnerabilities.");
+            return 0;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private OSVAdvisory loadAdvisory(String id) throws IOException {
+        var uri = URI.create(Settings.osvUrl + "/v1/vulns/" + URLEncoder.encode(id, StandardCharsets.UTF_8));
+        return intern(JsonParser.parseString(HttpTransport.getInstance().getString(uri)).getAsJsonObject());
+    }
+
+    /**
+     * Keeps one advisory per id for all components. An entry with a newer modified timestamp replaces the advisory,
+     * the components that already use the old one keep it until they are refreshed.
+     *
+     * @param data the OSV json of the vulnerability
+     * @return the newest advisory with the id of the entry
+     */
+    private OSVAdvisory intern(JsonObject data) {
+        var id = data.get("id").getAsString();
+        var modified = data.has("modified") && !data.get("modified").isJsonNull() ? data.get("modified").getAsString() : null;
+        var existing = advisories.get(id);
+        if (existing != null && !isNewer(modified, existing.getModified())) return existing;
+        return advisories.compute(id, (k, current) -> current != null && !isNewer(modified, current.getModified()) ? current : OSVAdvisory.of(data));
+    }
+
+    /**
+     * @return true if the modified timestamp is after the other one, or if they differ and one of them is unknown
+     */
+    private static boolean isNewer(String modified, String other) {
+        if (modified == null || other == null) return !Objects.equals(modified, other);
+        try {
+            return Instant.parse(modified).isAfter(Instant.parse(other));
+        } catch (DateTimeParseException e) {
+            return !modified.equals(other);
+        }
+    }
+
+    private JsonObject post(String path, JsonObject body) throws IOException {
+        var transport = HttpTransport.getInstance();
+        var response = transport.send(transport.newRequest(URI.create(Settings.osvUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build());
+        if (response.statusCode() != 200) {
+            throw new IOException("Request to " + path + " failed. Response code: " + response.statusCode());
+        }
+        return JsonParser.parseString(response.bodyAsString()).getAsJsonObject();
+    }
+
+    private static JsonObject createQuery(Component component, String pageToken) {
+        var packageObject = new JsonObject();
+        packageObject.addProperty("name", component.getGroup() + ":" + component.getArtifactId());
+        packageObject.addProperty("ecosystem", "Maven");
+        var query = new JsonObject();
+        query.addProperty("version", component.getVersion().version());
+        query.add("package", packageObject);
+        if (pageToken != null) query.addProperty("page_token", pageToken);
+        return query;
+    }
+
+    private static String getKey(Component component) {
+        return VulnerabilityCache.getPurl(component);
+    }
+
     @Override
     public void updateVulnerabilities(Component component) {
-        var vulComponent = new ArrayList<>(component.getAllVulnerabilities());
-        var vulLoaded = getVulnerabilities(component);
+        var vulComponent = new VulnerabilitySet(component.getAllVulnerabilities());
+        var vulLoaded = new VulnerabilitySet(getVulnerabilities(component));
 
-        var vulComponentToDelete = vulComponent.stream().filter(vulComp -> vulLoaded.stream().anyMatch(vulNet -> vulComp.getId().equals(vulNet.getId()))).toList();
-        var vulLoadedToAdd = vulLoaded.stream().filter(vulNet -> vulComponent.stream().noneMatch(vulComp -> vulComp.getId().equals(vulNet.getId()))).toList();
+        var vulComponentToDelete = vulComponent.notIn(vulLoaded);
+        var vulLoadedToAdd = vulLoaded.notIn(vulComponent);
 
         vulComponentToDelete.forEach(component::removeVulnerability);
         vulLoadedToAdd.forEach(component::addVulnerability);
     }
 
+    @Override
+    public void refreshVulnerabilities(Collection<? extends Component> components, boolean replaceAll) {
+        var start = System.currentTimeMillis();
+
+        // components with the same coordinates are queried once and all get the result
+        var byKey = new LinkedHashMap<String, List<Component>>();
+        for (var component : components) {
+            if (component.getGroup() == null || component.getArtifactId() == null || component.getVersion() == null) continue;
+            byKey.computeIfAbsent(getKey(component), k -> new ArrayList<>()).add(component);
+        }
+        var queried = new LinkedHashMap<String, Component>();
+        byKey.forEach((key, group) -> queried.put(key, group.get(0)));
+
+        Map<String, Map<String, String>> found;
+        try {
+            found = queryModified(queried);
+        } catch (Exception e) {
+            logger.error("Could not query the vulnerabilities of " + queried.size() + " components. Nothing was refreshed.", e);
+            return;
+        }
+
+        // only new vulnerabilities and vulnerabilities that were modified after they were written to the document are loaded
+        // id -> modified timestamp
+        var changedIds = new LinkedHashMap<String, String>();
+        for (var entry : byKey.entrySet()) {
+            var osv = found.getOrDefault(entry.getKey(), Map.of());
+            for (var component : entry.getValue()) {
+                var current = new VulnerabilitySet(component.getAllVulnerabilities());
+                osv.forEach((id, modified) -> {
+                    if (!current.containsId(id) || replaceAll || isModifiedAfter(modified, current.get(id))) changedIds.put(id, modified);
+                });
+            }
+        }
+        // the advisories that were loaded before and are not outdated are reused
+        var missing = new LinkedHashSet<String>();
+        changedIds.forEach((id, modified) -> {
+            var advisory = advisories.get(id);
+            if (advisory == null || isNewer(modified, advisory.getModified())) missing.add(id);
+        });
+        hydrate(missing);
+
+        int refreshed = 0, added = 0, updated = 0, removed = 0, unchanged = 0;
+        for (var entry : byKey.entrySet()) {
+            var osv = found.getOrDefault(entry.getKey(), Map.of());
+            for (var component : entry.getValue()) {
+                var current = new VulnerabilitySet(component.getAllVulnerabilities());
+                refreshed++;
+
+                for (var vulnerability : current) {
+                    var id = vulnerability.getId();
+                    if (!osv.containsKey(id)) {
+                        component.removeVulnerability(vulnerability);
+                        removed++;
+                    } else if ((replaceAll || isModifiedAfter(osv.get(id), vulnerability)) && advisories.containsKey(id)) {
+                        component.replaceVulnerability(vulnerability, new OSVVulnerability(component, advisories.get(id)));
+                        updated++;
+                    } else {
+                        unchanged++;
+                    }
+                }
+                for (var id : osv.keySet()) {
+                    if (current.containsId(id)) continue;
+                    if (!advisories.containsKey(id)) continue;
+                    component.addVulnerability(new OSVVulnerability(component, advisories.get(id)));
+                    added++;
+                }
+            }
+        }
+
+        logger.success("Refreshed vulnerabilities of " + refreshed + " components (" + byKey.size() + " queried): " + added + " added, " + updated + " updated, " + removed + " removed, " + unchanged + " unchanged (" + (System.currentTimeMillis() - start) + "ms)");
+    }
+
+    /**
+     * @param components purl -> component
+     * @return purl -> id -> modified timestamp of the vulnerabilities of every component
+     */
+    private Map<String, Map<String, String>> queryModified(Map<String, Component> components) throws IOException {
+        if (!Settings.osvOffline) return queryBatches(components).found();
+
+        var found = new LinkedHashMap<String, Map<String, String>>();
+        for (var entry : components.entrySet()) {
+            var component = entry.getValue();
+            var ids = new LinkedHashMap<String, String>();
+            for (var id : getDatabase().query(component.getGroup() + ":" + component.getArtifactId(), component.getVersion())) {
+                var data = getDatabase().getAdvisory(id);
+                if (data == null) continue;
+                ids.put(id, intern(data).getModified());
+            }
+            found.put(entry.getKey(), ids);
+        }
+        return found;
+    }
+
+    /**
+     * @param modified      the modified timestamp of OSV
+     * @param vulnerability the vulnerability as it was read from the document
+     * @return true if OSV modified the vulnerability after it was written to the document, or if one of the timestamps is unknown
+     */
+    private static boolean isModifiedAfter(String modified, Vulnerability vulnerability) {
+        var written = vulnerability.getModified();
+        if (modified == null || written == null) return true;
+        try {
+            return Instant.parse(modified).isAfter(Instant.ofEpochSecond(written.seconds(), written.nanos()));
+        } catch (DateTimeParseException e) {
+            return true;
+        }
+    }
+
     @Override
     public void addReadVulnerability(Vulnerability vulnerability) {
         this.readVulnerabilities.add(vulnerability);
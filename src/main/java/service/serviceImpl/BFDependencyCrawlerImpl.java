@@ -6,25 +6,36 @@ import data.Property;
 import data.internalData.MavenComponent;
 import exceptions.VersionResolveException;
 import logger.Logger;
+import network.ConnectionLimiter;
+import network.HostBulkhead;
+import network.HttpTransport;
 import repository.ComponentRepository;
+import repository.LicenseRepository;
+import repository.VulnerabilityRepository;
+import repository.repositoryImpl.MavenComponentRepository;
 import service.BFDependencyCrawler;
 import settings.Settings;
+import util.CrawlExecutors;
 
 import java.text.DecimalFormat;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class BFDependencyCrawlerImpl implements BFDependencyCrawler {
     private static final Logger logger = Logger.of("DependencyCrawler");
-    private final ForkJoinPool forkJoinPool = new ForkJoinPool();
 
 
     @Override
@@ -33,7 +44,8 @@ public class BFDependencyCrawlerImpl implements BFDependencyCrawler {
         var time = System.currentTimeMillis();
         logger.info("Crawling dependencies of " + parentComponent.getQualifiedName() + "...");
         if (Settings.crawlSingle) crawlSingle(parentComponent);
-        else crawlMulti2(parentComponent);
+        else if (Settings.crawlPolling) crawlMulti2(parentComponent);
+        else crawlEventDriven(parentComponent);
 
         if (updateDependenciesToNewestVersion) {
             logger.info("Applying overwritten versions...");
@@ -42,12 +54,20 @@ public class BFDependencyCrawlerImpl implements BFDependencyCrawler {
             logger.info("Skipping applying overwritten versions.");
         }
 
-        var loadedComponents = ComponentRepository.getAllRepositories().stream().mapToInt(it -> it.getLoadedComponents().size()).sum();
+        var components = ComponentRepository.getAllRepositories().stream().flatMap(it -> it.getLoadedComponents().stream()).toList();
+        logger.info("Resolving vulnerabilities...");
+        VulnerabilityRepository.getInstance().loadVulnerabilities(components);
+
+        var loadedComponents = components.size();
 
         double timeTaken = (System.currentTimeMillis() - time) / 1000.0;
         var format = new DecimalFormat("0.##");
 
         logger.success("Crawling finished in " + timeTaken + "s. Loaded " + loadedComponents + " Components. (" + format.format(timeTaken / loadedComponents) + "s per component)");
+        logger.info("Requests: " + ConnectionLimiter.getInstance().getRequests() + " (" + MavenComponentRepository.getInstance().getStatistics() + ")");
+        logger.info("Licenses: " + LicenseRepository.getInstance().getStatistics());
+        HostBulkhead.getAll().forEach(it -> logger.info("Connections " + it));
+        HttpTransport.getInstance().getMetrics().forEach(it -> logger.info("Transfer " + it));
     }
 
     private void crawlSingle(Component component) {
@@ -92,6 +112,27 @@ public class BFDependencyCrawlerImpl implements BFDependencyCrawler {
         }
     }
 
+    /**
+     * Crawls the dependencies with a completion driven, staged pipeline.
+     * Every finished task submits its follow-up tasks directly to the next stage, so no thread has to poll for new work.
+     * The crawl is finished as soon as no task is outstanding anymore.
+     *
+     * @param component the root component
+     */
+    private void crawlEventDriven(Component component) {
+        var pipeline = new CrawlPipeline();
+
+        pipeline.submitAll(component.getDependenciesFiltered());
+        pipeline.awaitCompletion();
+        pipeline.shutdown();
+    }
+
+    /**
+     * Crawls the dependencies by polling a shared queue.
+     * Kept as an alternative to {@link #crawlEventDriven(Component)} (see {@link Settings#crawlPolling}).
+     *
+     * @param component the root component
+     */
     private void crawlMulti2(Component component) {
         var loadCount = new AtomicInteger();
         var failCount = new AtomicInteger();
@@ -185,6 +226,26 @@ public class BFDependencyCrawlerImpl implements BFDependencyCrawler {
         }
     }
 
+    private boolean resolveVersion(Dependency dependency) {
+        if (dependency.hasVersion()) {
+            return true;
+        }
+
+        var repository = dependency.getType().getRepository();
+        if (repository == null) {
+            logger.error("Could not resolve version of dependency " + dependency + " since this is a component without a repository.");
+            return false;
+        }
+
+        try {
+            repository.getVersionResolver().resolveVersion(dependency);
+            return true;
+        } catch (VersionResolveException e) {
+            logger.error("Could not resolve version of dependency " + dependency + ": " + e);
+            return false;
+        }
+    }
+
     private LoadingStatus loadComponent(Component component) {
         if (component.isLoaded()) {
             return LoadingStatus.PREVIOUS;
@@ -239,6 +300,134 @@ public class BFDependencyCrawlerImpl implements BFDependencyCrawler {
         }
     }
 
+    /**
+     * Schedules the crawl of dependencies on a pipeline of stages. Every stage has its own executor, so a slow stage does not block the others:
+     * <ul>
+     *     <li>resolve: resolves the version of a dependency and gets its component (network)</li>
+     *     <li>fetch: loads the model of a maven component (network)</li>
+     *     <li>parse: reads the dependencies of a maven component and submits them to the resolve stage (cpu)</li>
+     *     <li>enrich: resolves the licenses of a maven component (network), this is not needed to discover the graph</li>
+     * </ul>
+     * Components that are not maven components are loaded completely in the fetch stage.
+     * <p>
+     * Keeps track of the outstanding tasks of all stages, so the crawl is finished when the counter reaches zero.
+     * The pipeline itself holds one unit of work until {@link #awaitCompletion()} is called, so the crawl cannot finish while it is still being seeded.
+     */
+    private class CrawlPipeline {
+        private final ExecutorService resolveStage = CrawlExecutors.newIoStageExecutor("resolve");
+        private final ExecutorService fetchStage = CrawlExecutors.newIoStageExecutor("fetch");
+        private final ExecutorService parseStage = CrawlExecutors.newStageExecutor("parse", Settings.crawlParseThreads);
+        private final ExecutorService enrichStage = CrawlExecutors.newStageExecutor("enrich", Settings.crawlEnrichThreads);
+        private final Set<Dependency> scheduledDependencies = ConcurrentHashMap.newKeySet();
+        private final Set<Component> scheduledComponents = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger outstandingTasks = new AtomicInteger(1);
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        void submitAll(Collection<Dependency> dependencies) {
+            for (var dependency : dependencies) {
+                submit(dependency);
+            }
+        }
+
+        void submit(Dependency dependency) {
+            if (dependency == null) return;
+
+            if (!scheduledDependencies.add(dependency)) {
+                logger.info("Skipping dependency " + dependency + " since it was already resolved.");
+                return;
+            }
+
+            submit(resolveStage, () -> resolve(dependency), dependency);
+        }
+
+        private void submit(ExecutorService stage, Runnable task, Object item) {
+            outstandingTasks.incrementAndGet();
+            try {
+                stage.execute(() -> {
+                    try {
+                        task.run();
+                    } catch (Exception e) {
+                        logger.error("Failed to crawl " + item + ".", e);
+                    } finally {
+                        complete();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                logger.error("Could not schedule " + item + ".", e);
+                complete();
+            }
+        }
+
+        private void resolve(Dependency dependency) {
+            if (!resolveVersion(dependency)) return;
+
+            var component = dependency.getComponent();
+            if (component == null) {
+                logger.error("Could not get component " + dependency + ".");
+                return;
+            }
+
+            if (!scheduledComponents.add(component)) return;
+
+            submit(fetchStage, () -> fetch(component), component);
+        }
+
+        private void fetch(Component component) {
+            if (component instanceof MavenComponent mavenComponent) {
+                if (!mavenComponent.fetch()) {
+                    logger.error("Failed to load component: " + component);
+                    return;
+                }
+                submit(parseStage, () -> parse(mavenComponent), component);
+                return;
+            }
+
+            if (loadComponent(component).addDependenciesToQueue) {
+                submitAll(component.getDependenciesFiltered());
+            }
+        }
+
+        private void parse(MavenComponent component) {
+            component.parse();
+            if (!component.isLoaded()) {
+                logger.error("Failed to load component: " + component);
+                return;
+            }
+
+            submitAll(component.getDependenciesFiltered());
+            submit(enrichStage, component::enrich, component);
+        }
+
+        private void complete() {
+            if (outstandingTasks.decrementAndGet() == 0) {
+                finished.countDown();
+            }
+        }
+
+        /**
+         * Releases the unit of work held by the pipeline and blocks until all tasks are finished.
+         */
+        void awaitCompletion() {
+            complete();
+            try {
+                while (!finished.await(10, TimeUnit.SECONDS)) {
+                    logger.info("Outstanding tasks: " + outstandingTasks.get() + ", open connections: " + ConnectionLimiter.getInstance().getOpenConnections());
+                    HostBulkhead.getAll().forEach(it -> logger.info(it.getHost() + ": in flight " + it.getInFlight() + ", queued " + it.getQueueDepth() + ", limit " + it.getLimit()));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.error("Thread interrupted while waiting for tasks to complete." + e);
+            }
+        }
+
+        void shutdown() {
+            resolveStage.shutdown();
+            fetchStage.shutdown();
+            parseStage.shutdown();
+            enrichStage.shutdown();
+        }
+    }
+
     enum LoadingStatus {
         SUCCESS(true), PREVIOUS(false), ERROR(false),
         ;
@@ -67,7 +67,9 @@ public class MavenVersionRangeResolver implements VersionRangeResolver {
                 versionRange.addVersion(bound.upperBound.version);
             }
         } else {
-            versionRange.addAllVersions(versionBounds.stream().map(versionBound -> this.getVersions(versionBound, (MavenDependency) dependency)).filter(Objects::nonNull).flatMap(Collection::stream).collect(Collectors.toSet()));
+            // all bounds filter the same versions, so they are only loaded once
+            var versions = MavenComponentRepository.getInstance().getVersions(dependency);
+            versionRange.addAllVersions(versionBounds.stream().map(versionBound -> this.getVersions(versionBound, versions)).filter(Objects::nonNull).flatMap(Collection::stream).collect(Collectors.toSet()));
         }
 
         return versionRange;
@@ -77,11 +79,10 @@ public class MavenVersionRangeResolver implements VersionRangeResolver {
      * Get the versions that satisfy the version bound.
      *
      * @param versionBound the version bound
-     * @param dependency   the dependency
+     * @param versions     all versions of the dependency
      * @return the versions that satisfy the version bound
      */
-    private List<Version> getVersions(VersionBound versionBound, MavenDependency dependency) {
-        var versions = MavenComponentRepository.getInstance().getVersions(dependency);
+    private List<Version> getVersions(VersionBound versionBound, List<Version> versions) {
         if (versionBound.lowerBound == null && versionBound.upperBound == null) {
             return versions;
         } else {
@@ -4,6 +4,7 @@ import com.google.protobuf.util.JsonFormat;
 import cyclonedx.sbom.Bom16;
 import data.Component;
 import data.Timestamp;
+import data.VulnerabilitySet;
 import service.DocumentBuilder;
 
 import java.io.File;
@@ -88,7 +89,7 @@ public class SBOMBuilder implements DocumentBuilder<Component, Bom16.Bom> {
         bomBuilder.setMetadata(buildMetadata(root));
         bomBuilder.addAllDependencies(dependencies);
         bomBuilder.addAllComponents(components.values().stream().filter(it -> !Objects.equals(it.getPurl(), root.getPurl())).sorted(Comparator.comparing(Bom16.Component::getBomRef)).toList());
-        var vuls = root.getDependencyComponentsFlatFiltered().stream().map(Component::getAllVulnerabilities).flatMap(Collection::stream).collect(Collectors.toSet());
+        var vuls = root.getDependencyComponentsFlatFiltered().stream().map(Component::getAllVulnerabilities).flatMap(Collection::stream).collect(Collectors.toCollection(VulnerabilitySet::new));
         bomBuilder.addAllVulnerabilities(buildAllVulnerabilities(vuls));
 
         return bomBuilder.build();
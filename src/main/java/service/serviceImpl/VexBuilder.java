@@ -1,21 +1,29 @@
 package service.serviceImpl;
 
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
 import com.google.protobuf.util.JsonFormat;
 import cyclonedx.vex.VexOuterClass;
 import data.Component;
 import data.Vulnerability;
 import data.VulnerabilityRating;
 import data.VulnerabilityReference;
+import data.readData.ReadVexVulnerability;
 import logger.Logger;
 import service.DocumentBuilder;
+import settings.Settings;
+import util.CrawlExecutors;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
 
 public class VexBuilder implements DocumentBuilder<Component, Iterable<Vulnerability>> {
@@ -28,7 +36,8 @@ public class VexBuilder implements DocumentBuilder<Component, Iterable<Vulnerabi
         logger.info("Creating VEX for " + root.getQualifiedName() + "...");
 
 
-        var vex = buildVex(root);
+        var vulnerabilities = collectVulnerabilities(root);
+        var vex = buildVex(vulnerabilities);
 
         if (vex.getVulnerabilitiesCount() == 0) {
             logger.success("No vulnerabilities found. No VEX will be created.");
@@ -50,7 +59,7 @@ public class VexBuilder implements DocumentBuilder<Component, Iterable<Vulnerabi
         try {
             var file = new File(outputFileName + ".vex.json");
             var outputStream = new FileWriter(file);
-            outputStream.write(JsonFormat.printer().print(vex));
+            outputStream.write(toJson(vex, vulnerabilities));
             outputStream.close();
         } catch (IOException e) {
             logger.error("Failed writing to JSON.", e);
@@ -59,27 +68,54 @@ public class VexBuilder implements DocumentBuilder<Component, Iterable<Vulnerabi
         logger.success(new File(outputFileName).getAbsolutePath() + ".vex.json saved (" + (System.currentTimeMillis() - start) + "ms)");
     }
 
-    private VexOuterClass.Vex buildVex(Component root) {
+    private VexOuterClass.Vex buildVex(List<Vulnerability> vulnerabilities) {
         var builder = VexOuterClass.Vex.newBuilder();
-        builder.addAllVulnerabilities(buildAllVulnerabilities(root));
+        builder.addAllVulnerabilities(buildAllVulnerabilities(vulnerabilities));
         return builder.build();
     }
 
-    private Iterable<VexOuterClass.Vulnerability> buildAllVulnerabilities(Component root) {
-        var list = new ArrayList<VexOuterClass.Vulnerability>();
+    private List<Vulnerability> collectVulnerabilities(Component root) {
+        var list = new ArrayList<Vulnerability>();
 
         for (var component : root.getDependencyComponentsFlatFiltered().stream().sorted(Comparator.comparing(Component::getQualifiedName)).toList()) {
             var vulnerabilities = component.getAllVulnerabilities();
             if (vulnerabilities != null) {
-                for (var vulnerability : vulnerabilities) {
-                    list.add(buildVulnerability(vulnerability));
-                }
+                list.addAll(vulnerabilities);
             }
         }
 
         return list;
     }
 
+    private Iterable<VexOuterClass.Vulnerability> buildAllVulnerabilities(List<Vulnerability> vulnerabilities) {
+        var list = new ArrayList<VexOuterClass.Vulnerability>();
+        for (var vulnerability : vulnerabilities) {
+            list.add(buildVulnerability(vulnerability));
+        }
+        return list;
+    }
+
+    /**
+     * The VEX message has no updated field, so it is added to the json of every vulnerability.
+     * It is the modified timestamp of OSV when the vulnerability was written, a refresh only loads vulnerabilities that were modified after it.
+     *
+     * @param vex             the VEX
+     * @param vulnerabilities the vulnerabilities, in the order of the VEX
+     * @return the json of the VEX
+     */
+    private static String toJson(VexOuterClass.Vex vex, List<Vulnerability> vulnerabilities) throws IOException {
+        var json = JsonParser.parseString(JsonFormat.printer().print(vex)).getAsJsonObject();
+        if (json.has("vulnerabilities")) {
+            var entries = json.getAsJsonArray("vulnerabilities");
+            for (int i = 0; i < entries.size(); i++) {
+                var modified = vulnerabilities.get(i).getModified();
+                if (modified == null) continue;
+                entries.get(i).getAsJsonObject().addProperty("updated", Instant.ofEpochSecond(modified.seconds(), modified.nanos()).toString());
+            }
+        }
+        return new GsonBuilder().setPrettyPrinting().create().toJson(json);
+    }
+
     private VexOuterClass.Vulnerability buildVulnerability(Vulnerability vulnerability) {
         var builder = VexOuterClass.Vulnerability.newBuilder();
         builder.setId(vulnerability.getId());
@@ -165,19 +201,52 @@ public class VexBuilder implements DocumentBuilder<Component, Iterable<Vulnerabi
     public void rebuildDocument(Iterable<Vulnerability> vulnerabilities, String path) {
         logger.info("Writing VEX for " + path + "...");
         var builder = VexOuterClass.Vex.newBuilder();
+        var list = new ArrayList<Vulnerability>();
+        vulnerabilities.forEach(list::add);
 
-        for (var vulnerability : vulnerabilities) {
-            builder.addVulnerabilities(buildVulnerability(vulnerability));
+        // the entries are built in parallel and added in the given order
+        var executor = CrawlExecutors.newStageExecutor("vex", Settings.crawlParseThreads);
+        try {
+            var futures = new ArrayList<Future<VexOuterClass.Vulnerability>>();
+            for (var vulnerability : list) {
+                futures.add(executor.submit(() -> rebuildVulnerability(vulnerability)));
+            }
+            for (var future : futures) {
+                builder.addVulnerabilities(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while writing VEX.");
+            return;
+        } catch (ExecutionException e) {
+            logger.error("Failed building VEX.", e);
+            return;
+        } finally {
+            executor.shutdownNow();
         }
 
         try {
             var file = new File(path + ".vex.json");
             var outputStream = new FileWriter(file);
-            outputStream.write(JsonFormat.printer().print(builder.build()));
+            outputStream.write(toJson(builder.build(), list));
             outputStream.close();
         } catch (IOException e) {
             logger.error("Failed writing to JSON.", e);
         }
         logger.success("VEX updated.");
     }
+
+    private VexOuterClass.Vulnerability rebuildVulnerability(Vulnerability vulnerability) {
+        if (vulnerability instanceof ReadVexVulnerability readVulnerability) {
+            // unchanged vulnerabilities are written as they were read
+            var vulnerabilityBuilder = VexOuterClass.Vulnerability.newBuilder();
+            try {
+                JsonFormat.parser().ignoringUnknownFields().merge(readVulnerability.getJson().toString(), vulnerabilityBuilder);
+                return vulnerabilityBuilder.build();
+            } catch (IOException e) {
+                logger.error("Could not copy " + vulnerability.getId() + ", building it again.", e);
+            }
+        }
+        return buildVulnerability(vulnerability);
+    }
 }
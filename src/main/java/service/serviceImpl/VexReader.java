@@ -1,9 +1,9 @@
 package service.serviceImpl;
 
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import data.Version;
+import data.Vulnerability;
 import data.readData.ReadVexComponent;
 import data.readData.ReadVexVulnerability;
 import logger.Logger;
@@ -13,6 +13,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 
 public class VexReader implements DocumentReader<List<ReadVexComponent>> {
@@ -39,9 +40,10 @@ public class VexReader implements DocumentReader<List<ReadVexComponent>> {
         logger.info("Read from file. Parsing... ");
 
         var vulnerabilities = json.get("vulnerabilities").getAsJsonArray();
-        var components = new ArrayList<ReadVexComponent>();
-        for (JsonElement vulnerability : vulnerabilities) {
-            var vul = vulnerability.getAsJsonObject();
+        // one component per ref, a component can have multiple vulnerabilities
+        var components = new LinkedHashMap<String, ReadVexComponent>();
+        for (int i = 0; i < vulnerabilities.size(); i++) {
+            var vul = vulnerabilities.get(i).getAsJsonObject();
             var ref = vul.get("ref").getAsString();
             var refSplit = ref.split(":");
             if (refSplit.length != 3) {
@@ -52,13 +54,19 @@ public class VexReader implements DocumentReader<List<ReadVexComponent>> {
                 logger.error("Error reading vulnerability: Missing id: " + ref);
                 continue;
             }
-            var newComp = new ReadVexComponent(refSplit[0], refSplit[1], Version.of(refSplit[2]));
-            var newVul = new ReadVexVulnerability(newComp, vul);
+            var newComp = components.computeIfAbsent(ref, k -> new ReadVexComponent(refSplit[0], refSplit[1], Version.of(refSplit[2])));
+            var newVul = new ReadVexVulnerability(newComp, vul, i);
             newComp.setData("addVulnerability", newVul);
-            components.add(newComp);
         }
 
 
-        return components;
+        return new ArrayList<>(components.values());
+    }
+
+    /**
+     * Orders vulnerabilities as they were in the VEX file. Vulnerabilities that were not part of the file come last.
+     */
+    public static int getDocumentPosition(Vulnerability vulnerability) {
+        return vulnerability.getComponent() instanceof ReadVexComponent component ? component.getDocumentPosition(vulnerability.getId()) : Integer.MAX_VALUE;
     }
 }
@@ -1,6 +1,8 @@
 package settings;
 
 import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
 
 public class Settings {
 
@@ -27,6 +29,23 @@ public class Settings {
     public static Boolean crawlEverything = false;
     public static Integer crawlThreads = 10;
     public static boolean crawlSingle = false;
+    public static boolean crawlPolling = false;
+    public static boolean crawlVirtualThreads = false;
+    public static Integer crawlParseThreads = Runtime.getRuntime().availableProcessors();
+    public static Integer crawlEnrichThreads = 10;
+    public static Integer maxConnections = 64;
+    public static Map<String, Integer> repositoryConnectionLimits = new HashMap<>();
+    public static long metadataCacheTtl = 24 * 60;
+    public static long notFoundCacheTtl = 7 * 24 * 60;
+    public static long connectTimeout = 10;
+    public static long requestTimeout = 60;
+    public static String osvUrl = "https://api.osv.dev";
+    public static int vulnerabilityBatchSize = 1000;
+    public static int vulnerabilityThreads = 16;
+    public static boolean osvOffline = false;
+    public static String osvExport;
+    public static long vulnerabilityCacheTtl = 24 * 60;
+    public static boolean refreshVulnerabilities = false;
     private static File dataFolder;
 
 }
@@ -0,0 +1,313 @@
+package util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import data.Version;
+import data.internalData.VersionIntervalIndex;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares the lookup of the OSV advisories that affect a version with {@link VersionIntervalIndex} with the previous implementation,
+ * which compared the version with every range of every advisory of the package and parsed the range versions on every comparison.
+ * <p>
+ * The packages and advisories are generated: version lists like the ones of popular artifacts, and advisories with introduced, fixed and last_affected events,
+ * re-introduced and open ranges, git ranges and exact versions. Some packages mix versions of different shapes, which the version comparison does not order totally.
+ * Checks that both implementations find the same advisories for every version of every package and for some hand written edge cases.
+ * Exits with status 1 if they do not.
+ * <p>
+ * Usage: AffectedRangeBenchmark
+ */
+public class AffectedRangeBenchmark {
+    private static final int warmupRounds = 5;
+    private static final int rounds = 20;
+
+    /**
+     * An interval of affected versions as it was stored before the index. A null start or end is unbounded.
+     */
+    private record Range(String start, String end, boolean endInclusive) {
+        boolean contains(Version version) {
+            if (start != null && version.compareTo(Version.of(start)) < 0) return false;
+            if (end == null) return true;
+            var comparison = version.compareTo(Version.of(end));
+            return endInclusive ? comparison <= 0 : comparison < 0;
+        }
+    }
+
+    private record Advisory(String id, List<String> versions, List<Range> ranges, JsonObject affected) {
+    }
+
+    private record Package(String name, List<String> versions, List<Advisory> advisories) {
+    }
+
+    public static void main(String[] args) {
+        var packages = generatePackages();
+        var queryCount = packages.stream().mapToInt(p -> p.versions().size()).sum();
+        System.out.println(packages.size() + " packages, " + packages.stream().mapToInt(p -> p.advisories().size()).sum() + " advisories, " + queryCount + " lookups");
+
+        var start = System.nanoTime();
+        var index = buildIndex(packages);
+        System.out.println("index built in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+
+        var mismatches = checkEdgeCases() + checkEquivalence(packages, index);
+        if (mismatches > 0) {
+            System.err.println(mismatches + " lookups differ.");
+            System.exit(1);
+        }
+        System.out.println("Both implementations find the same advisories for every lookup.");
+
+        for (int round = 0; round < warmupRounds; round++) {
+            findLegacy(packages);
+            find(packages, index);
+        }
+
+        System.out.println("lookup: legacy " + measure(() -> findLegacy(packages)) + "ms, index " + measure(() -> find(packages, index)) + "ms");
+    }
+
+    private static long measure(Runnable workload) {
+        var start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            workload.run();
+        }
+        return (System.nanoTime() - start) / rounds / 1_000_000;
+    }
+
+    private static VersionIntervalIndex buildIndex(List<Package> packages) {
+        var index = new VersionIntervalIndex();
+        for (var p : packages) {
+            for (var advisory : p.advisories()) {
+                index.add(p.name(), advisory.id(), advisory.versions(), VersionIntervalIndex.parseRanges(advisory.affected()));
+            }
+        }
+        return index;
+    }
+
+    private static int find(List<Package> packages, VersionIntervalIndex index) {
+        var found = 0;
+        for (var p : packages) {
+            for (var version : p.versions()) {
+                found += index.query(p.name(), Version.of(version)).size();
+            }
+        }
+        return found;
+    }
+
+    private static int findLegacy(List<Package> packages) {
+        var found = 0;
+        for (var p : packages) {
+            for (var version : p.versions()) {
+                found += findLegacy(p, Version.of(version)).size();
+            }
+        }
+        return found;
+    }
+
+    /**
+     * The lookup before the index: every range of every advisory of the package is compared with the version.
+     */
+    private static Set<String> findLegacy(Package p, Version version) {
+        var result = new LinkedHashSet<String>();
+        for (var advisory : p.advisories()) {
+            if (advisory.versions().contains(version.version()) || advisory.ranges().stream().anyMatch(range -> range.contains(version))) {
+                result.add(advisory.id());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The resolution of the events before the index: every introduced event starts an interval that ends at the next fixed or last_affected event.
+     */
+    private static List<Range> parseRangesLegacy(JsonObject affected) {
+        var ranges = new ArrayList<Range>();
+        if (affected.has("ranges")) for (var rangeElement : affected.get("ranges").getAsJsonArray()) {
+            var range = rangeElement.getAsJsonObject();
+            if (range.has("type") && range.get("type").getAsString().equals("GIT")) continue;
+
+            String introduced = null;
+            var open = false;
+            for (var eventElement : range.get("events").getAsJsonArray()) {
+                var event = eventElement.getAsJsonObject();
+                if (event.has("introduced")) {
+                    if (open) continue;
+                    introduced = event.get("introduced").getAsString();
+                    if (introduced.equals("0")) introduced = null;
+                    open = true;
+                } else if (event.has("fixed") && open) {
+                    ranges.add(new Range(introduced, event.get("fixed").getAsString(), false));
+                    open = false;
+                } else if (event.has("last_affected") && open) {
+                    ranges.add(new Range(introduced, event.get("last_affected").getAsString(), true));
+                    open = false;
+                }
+            }
+            if (open) ranges.add(new Range(introduced, null, false));
+        }
+        return ranges;
+    }
+
+    private static int checkEquivalence(List<Package> packages, VersionIntervalIndex index) {
+        var mismatches = 0;
+        for (var p : packages) {
+            // the versions of the package include every boundary of its ranges
+            for (var version : p.versions()) {
+                var legacy = findLegacy(p, Version.of(version));
+                var indexed = new HashSet<>(index.query(p.name(), Version.of(version)));
+                if (!legacy.equals(indexed)) {
+                    if (mismatches++ < 10) System.err.println("Mismatch: " + p.name() + " " + version + " -> legacy " + legacy + ", index " + indexed);
+                }
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * The boundaries of the OSV events: introduced is inclusive, fixed is exclusive, last_affected is inclusive, introduced 0 is unbounded,
+     * an introduced event without a fixed event is open, a range can be re-introduced after a fix, git ranges are ignored and exact versions are affected.
+     * <p>
+     * Versions of different shapes: the version comparison stops at the first part that is not numeric, so e.g. 1.0-beta compares equal to 1.0.0 and 1.0.1,
+     * while 1.0.0 is smaller than 1.0.1.
+     */
+    private static int checkEdgeCases() {
+        var advisories = new ArrayList<Advisory>();
+        advisories.add(advisory("FIXED", List.of(), range("ECOSYSTEM", "introduced", "1.2", "fixed", "1.5")));
+        advisories.add(advisory("LAST-AFFECTED", List.of(), range("ECOSYSTEM", "introduced", "1.2", "last_affected", "1.5")));
+        advisories.add(advisory("FROM-ZERO", List.of(), range("ECOSYSTEM", "introduced", "0", "fixed", "1.0.1")));
+        advisories.add(advisory("OPEN", List.of(), range("ECOSYSTEM", "introduced", "2.0")));
+        advisories.add(advisory("REINTRODUCED", List.of(), range("ECOSYSTEM", "introduced", "1.0", "fixed", "1.1", "introduced", "1.4", "fixed", "1.6")));
+        advisories.add(advisory("DOUBLE-INTRODUCED", List.of(), range("SEMVER", "introduced", "1.3", "introduced", "1.0", "fixed", "1.4")));
+        advisories.add(advisory("GIT", List.of(), range("GIT", "introduced", "0")));
+        advisories.add(advisory("EXACT", List.of("1.1", "3.0-rc1"), new JsonObject[0]));
+        advisories.add(advisory("TWO-RANGES", List.of(), range("ECOSYSTEM", "introduced", "1.5", "fixed", "1.6"), range("ECOSYSTEM", "introduced", "0", "last_affected", "1.0")));
+
+        Map<String, Set<String>> expected = new LinkedHashMap<>();
+        expected.put("0.1", Set.of("FROM-ZERO", "TWO-RANGES"));
+        expected.put("1.0", Set.of("FROM-ZERO", "REINTRODUCED", "TWO-RANGES"));
+        expected.put("1.0.1", Set.of("REINTRODUCED"));
+        expected.put("1.1", Set.of("EXACT"));
+        expected.put("1.2", Set.of("FIXED", "LAST-AFFECTED"));
+        expected.put("1.3", Set.of("FIXED", "LAST-AFFECTED", "DOUBLE-INTRODUCED"));
+        expected.put("1.4", Set.of("FIXED", "LAST-AFFECTED", "REINTRODUCED"));
+        expected.put("1.5", Set.of("LAST-AFFECTED", "REINTRODUCED", "TWO-RANGES"));
+        expected.put("1.6", Set.of());
+        expected.put("2.0", Set.of("OPEN"));
+        expected.put("3.0-rc1", Set.of("OPEN", "EXACT"));
+        var mismatches = checkExpected(new Package("org.example:edge", List.of(), advisories), expected);
+
+        var mixed = new ArrayList<Advisory>();
+        mixed.add(advisory("A", List.of(), range("ECOSYSTEM", "introduced", "1.0.1", "fixed", "1.0.5")));
+        mixed.add(advisory("B", List.of(), range("ECOSYSTEM", "introduced", "1.0-beta", "fixed", "2.0")));
+        mixed.add(advisory("C", List.of(), range("ECOSYSTEM", "introduced", "0", "last_affected", "1.0")));
+        mixed.add(advisory("D", List.of(), range("ECOSYSTEM", "introduced", "1.0.0.Final", "fixed", "1.0.3")));
+
+        expected = new LinkedHashMap<>();
+        expected.put("1.0-beta", Set.of("B"));
+        expected.put("1.0", Set.of("C"));
+        expected.put("1.0.0", Set.of("B"));
+        expected.put("1.0.0.Final", Set.of("B", "D"));
+        expected.put("1.0.1", Set.of("A", "B", "D"));
+        expected.put("1.0.2", Set.of("A", "B", "D"));
+        expected.put("1.0.5", Set.of("B"));
+        expected.put("2.0", Set.of());
+        return mismatches + checkExpected(new Package("org.example:mixed", List.of(), mixed), expected);
+    }
+
+    private static int checkExpected(Package p, Map<String, Set<String>> expected) {
+        var index = buildIndex(List.of(p));
+        var mismatches = 0;
+        for (var entry : expected.entrySet()) {
+            var version = Version.of(entry.getKey());
+            var legacy = findLegacy(p, version);
+            var indexed = new HashSet<>(index.query(p.name(), version));
+            if (!legacy.equals(entry.getValue()) || !indexed.equals(entry.getValue())) {
+                mismatches++;
+                System.err.println("Edge case " + p.name() + " " + entry.getKey() + ": expected " + entry.getValue() + " -> legacy " + legacy + ", index " + indexed);
+            }
+        }
+        return mismatches;
+    }
+
+    private static Advisory advisory(String id, List<String> versions, JsonObject... ranges) {
+        var affected = new JsonObject();
+        var rangeArray = new JsonArray();
+        for (var range : ranges) rangeArray.add(range);
+        affected.add("ranges", rangeArray);
+        var versionArray = new JsonArray();
+        versions.forEach(versionArray::add);
+        affected.add("versions", versionArray);
+        return new Advisory(id, versions, parseRangesLegacy(affected), affected);
+    }
+
+    /**
+     * @param events alternating event types and versions
+     */
+    private static JsonObject range(String type, String... events) {
+        var range = new JsonObject();
+        range.addProperty("type", type);
+        var eventArray = new JsonArray();
+        for (int i = 0; i < events.length; i += 2) {
+            var event = new JsonObject();
+            event.addProperty(events[i], events[i + 1]);
+            eventArray.add(event);
+        }
+        range.add("events", eventArray);
+        return range;
+    }
+
+    /**
+     * Generates packages with version lists like the ones of popular artifacts, and advisories whose events are versions of the package,
+     * so every boundary of a range is looked up. Every fourth package mixes versions of different shapes (1.0-beta, 1.0, 1.0.0, 1.0.0.Final).
+     */
+    private static List<Package> generatePackages() {
+        var random = new Random(42);
+        String[][] suffixes = {{""}, {"", "-rc1", "-M1"}, {".Final", ".CR1"}, {"", ".Final"}};
+        var packages = new ArrayList<Package>();
+        for (int i = 0; i < 300; i++) {
+            var versions = new ArrayList<String>();
+            var suffixSet = suffixes[i % suffixes.length];
+            for (int major = 0; major < 1 + random.nextInt(5); major++) {
+                for (int minor = 0; minor < 1 + random.nextInt(8); minor++) {
+                    if (i % suffixes.length == 3) {
+                        versions.add(major + "." + minor + "-beta");
+                        versions.add(major + "." + minor);
+                    }
+                    for (int patch = 0; patch <= random.nextInt(4); patch++) {
+                        for (var suffix : suffixSet) versions.add(major + "." + minor + "." + patch + suffix);
+                    }
+                }
+            }
+
+            var advisories = new ArrayList<Advisory>();
+            var advisoryCount = 1 + random.nextInt(30);
+            for (int a = 0; a < advisoryCount; a++) {
+                var ranges = new ArrayList<JsonObject>();
+                for (int r = 0; r < 1 + random.nextInt(2); r++) {
+                    var events = new ArrayList<String>();
+                    var position = random.nextInt(versions.size());
+                    for (int e = 0; e < 1 + random.nextInt(3); e++) {
+                        events.add("introduced");
+                        events.add(e == 0 && random.nextInt(4) == 0 ? "0" : versions.get(position));
+                        if (random.nextInt(5) == 0) break;
+                        position = Math.min(versions.size() - 1, position + 1 + random.nextInt(10));
+                        events.add(random.nextBoolean() ? "fixed" : "last_affected");
+                        events.add(versions.get(position));
+                        position = Math.min(versions.size() - 1, position + 1 + random.nextInt(10));
+                    }
+                    ranges.add(range(random.nextInt(10) == 0 ? "GIT" : "ECOSYSTEM", events.toArray(new String[0])));
+                }
+                var exact = new ArrayList<String>();
+                if (random.nextInt(3) == 0) for (int v = 0; v < 1 + random.nextInt(5); v++) exact.add(versions.get(random.nextInt(versions.size())));
+                advisories.add(advisory("GHSA-" + i + "-" + a, exact, ranges.toArray(new JsonObject[0])));
+            }
+            packages.add(new Package("org.example:artifact-" + i, versions, advisories));
+        }
+        return packages;
+    }
+}
@@ -0,0 +1,37 @@
+package util;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes files to the data folder, so that concurrent readers (other threads or runs) never see a partially written file.
+ */
+public class AtomicFiles {
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * Writes the content to a temporary file next to the target first and then moves it to the target.
+     *
+     * @param target  the file to write
+     * @param content the content
+     * @throws IOException if the file could not be written
+     */
+    public static void write(Path target, byte[] content) throws IOException {
+        var tempFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tempFile, content);
+            try {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package util;
+
+import logger.Logger;
+import settings.Settings;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executors used for crawling, depending on {@link Settings#crawlVirtualThreads}.
+ */
+public class CrawlExecutors {
+    private static final Logger logger = Logger.of("CrawlExecutors");
+    private static final int stageQueueCapacity = 1024;
+
+    private CrawlExecutors() {
+    }
+
+    /**
+     * Creates an executor for a stage of the crawl pipeline that waits for the network.
+     * Uses virtual threads if they are enabled and supported, otherwise a bounded stage executor with {@link Settings#crawlThreads} threads.
+     *
+     * @param name the name of the stage
+     * @return the executor
+     */
+    public static ExecutorService newIoStageExecutor(String name) {
+        if (Settings.crawlVirtualThreads) {
+            var executorService = newVirtualThreadPerTaskExecutor();
+            if (executorService != null) return executorService;
+            logger.error("Virtual threads are not supported by this java runtime (" + Runtime.version() + "). Falling back to " + Settings.crawlThreads + " platform threads.");
+        }
+        return newStageExecutor(name, Settings.crawlThreads);
+    }
+
+    /**
+     * Creates an executor for a stage of the crawl pipeline with a bounded queue.
+     * If the queue is full, the submitting thread runs the task itself. This slows down the previous stage instead of blocking it,
+     * so stages that submit to each other can never deadlock.
+     *
+     * @param name    the name of the stage, used for the thread names
+     * @param threads the number of threads
+     * @return the executor
+     */
+    public static ExecutorService newStageExecutor(String name, int threads) {
+        var threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            var thread = new Thread(runnable, "crawl-" + name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(stageQueueCapacity), threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Looked up at runtime, so the project still compiles on java versions before 21.
+     *
+     * @return a virtual thread per task executor or null if the runtime does not support virtual threads
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            var handle = MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+            return (ExecutorService) handle.invoke();
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        } catch (Throwable e) {
+            logger.error("Could not create virtual thread executor. " + e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package util;
+
+import data.Component;
+import data.Dependency;
+import data.ExternalReference;
+import data.Hash;
+import data.LicenseChoice;
+import data.Organization;
+import data.Person;
+import data.Property;
+import data.Version;
+import data.Vulnerability;
+import enums.ComponentType;
+import repository.ComponentRepository;
+import service.serviceImpl.BFDependencyCrawlerImpl;
+import settings.Settings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Compares the completion driven crawl scheduler with the polling crawl loop.
+ * <p>
+ * Crawls a synthetic dependency graph, where loading a component only sleeps for a simulated network latency.
+ * <p>
+ * Usage: CrawlSchedulerBenchmark [components] [dependencies per component] [latency ms] [threads] [runs]
+ */
+public class CrawlSchedulerBenchmark {
+
+    public static void main(String[] args) {
+        var componentCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        var dependencyCount = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        var latency = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        var threads = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        var runs = args.length > 4 ? Integer.parseInt(args[4]) : 3;
+
+        Settings.crawlThreads = threads;
+
+        System.out.println("Graph: " + componentCount + " components, " + dependencyCount + " dependencies each, " + latency + "ms latency, " + threads + " threads");
+
+        for (int run = 0; run < runs; run++) {
+            var polling = crawl(buildGraph(componentCount, dependencyCount, latency), true);
+            var eventDriven = crawl(buildGraph(componentCount, dependencyCount, latency), false);
+            System.out.println("Run " + run + ": polling " + polling + "ms, event driven " + eventDriven + "ms");
+        }
+        System.exit(0);
+    }
+
+    private static long crawl(SyntheticComponent root, boolean polling) {
+        Settings.crawlPolling = polling;
+        var start = System.currentTimeMillis();
+        new BFDependencyCrawlerImpl().crawl(root, false);
+        var time = System.currentTimeMillis() - start;
+
+        var notLoaded = root.getDependenciesFlatFiltered().stream().map(Dependency::getComponent).filter(it -> !it.isLoaded()).count();
+        if (notLoaded > 0) {
+            System.err.println(notLoaded + " components were not loaded.");
+        }
+        return time;
+    }
+
+    /**
+     * Builds a random directed acyclic graph. Every component depends on components with a higher index, so the graph has many shared dependencies and a deep frontier.
+     */
+    private static SyntheticComponent buildGraph(int componentCount, int dependencyCount, int latency) {
+        var random = new Random(42);
+        var components = new ArrayList<SyntheticComponent>();
+        for (int i = 0; i < componentCount; i++) {
+            components.add(new SyntheticComponent("component" + i, latency));
+        }
+
+        for (int i = 0; i < componentCount; i++) {
+            var component = components.get(i);
+            var remaining = componentCount - i - 1;
+            for (int j = 0; j < Math.min(dependencyCount, remaining); j++) {
+                // prefer close components to get a deep graph
+                var target = i + 1 + Math.min(remaining - 1, (int) Math.abs(random.nextGaussian() * 10));
+                component.addDependency(new SyntheticDependency(component, components.get(target)));
+            }
+        }
+
+        var root = new SyntheticComponent("root", 0);
+        root.setRoot();
+        root.addDependency(new SyntheticDependency(root, components.get(0)));
+        return root;
+    }
+
+    private static class SyntheticDependency implements Dependency {
+        private final Component treeParent;
+        private Component component;
+
+        SyntheticDependency(Component treeParent, Component component) {
+            this.treeParent = treeParent;
+            this.component = component;
+        }
+
+        @Override
+        public String getQualifiedName() {
+            return component.getQualifiedName();
+        }
+
+        @Override
+        public Version getVersion() {
+            return component.getVersion();
+        }
+
+        @Override
+        public String getScope() {
+            return "compile";
+        }
+
+        @Override
+        public Component getComponent() {
+            return component;
+        }
+
+        @Override
+        public Boolean shouldResolveByScope() {
+            return true;
+        }
+
+        @Override
+        public Component getTreeParent() {
+            return treeParent;
+        }
+
+        @Override
+        public String getVersionConstraints() {
+            return component.getVersion().version();
+        }
+
+        @Override
+        public boolean hasVersion() {
+            return true;
+        }
+
+        @Override
+        public void setVersion(Version version) {
+        }
+
+        @Override
+        public void setComponent(Component component) {
+            this.component = component;
+        }
+
+        @Override
+        public boolean isNotOptional() {
+            return true;
+        }
+
+        @Override
+        public ComponentType getType() {
+            return ComponentType.READ;
+        }
+
+        @Override
+        public final boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof SyntheticDependency that)) return false;
+
+            return Objects.equals(getQualifiedName(), that.getQualifiedName());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getQualifiedName());
+        }
+
+        @Override
+        public String toString() {
+            return getQualifiedName();
+        }
+    }
+
+    private static class SyntheticComponent implements Component {
+        private final String name;
+        private final int latency;
+        private final List<Dependency> dependencies = new ArrayList<>();
+        private volatile boolean loaded = false;
+
+        SyntheticComponent(String name, int latency) {
+            this.name = name;
+            this.latency = latency;
+        }
+
+        @Override
+        public void loadComponent() {
+            if (loaded) return;
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            loaded = true;
+        }
+
+        @Override
+        public boolean isLoaded() {
+            return loaded;
+        }
+
+        @Override
+        public List<Dependency> getDependencies() {
+            return dependencies;
+        }
+
+        @Override
+        public String getQualifiedName() {
+            return "benchmark:" + name + ":1.0.0";
+        }
+
+        @Override
+        public String getGroup() {
+            return "benchmark";
+        }
+
+        @Override
+        public String getArtifactId() {
+            return name;
+        }
+
+        @Override
+        public Version getVersion() {
+            return Version.of("1.0.0");
+        }
+
+        @Override
+        public Organization getSupplier() {
+            return null;
+        }
+
+        @Override
+        public Organization getManufacturer() {
+            return null;
+        }
+
+        @Override
+        public List<Person> getContributors() {
+            return null;
+        }
+
+        @Override
+        public String getDescription() {
+            return null;
+        }
+
+        @Override
+        public ComponentRepository getRepository() {
+            return null;
+        }
+
+        @Override
+        public String getPurl() {
+            return null;
+        }
+
+        @Override
+        public String getProperty(String key) {
+            return null;
+        }
+
+        @Override
+        public Component getParent() {
+            return null;
+        }
+
+        @Override
+        public void addDependency(Dependency dependency) {
+            dependencies.add(dependency);
+        }
+
+        @Override
+        public void setRoot() {
+            loaded = true;
+        }
+
+        @Override
+        public List<ExternalReference> getAllExternalReferences() {
+            return null;
+        }
+
+        @Override
+        public List<Hash> getAllHashes() {
+            return null;
+        }
+
+        @Override
+        public List<Vulnerability> getAllVulnerabilities() {
+            return List.of();
+        }
+
+        @Override
+        public String getDownloadLocation() {
+            return null;
+        }
+
+        @Override
+        public String getPublisher() {
+            return null;
+        }
+
+        @Override
+        public List<LicenseChoice> getAllLicenses() {
+            return null;
+        }
+
+        @Override
+        public List<Property> getAllProperties() {
+            return null;
+        }
+
+        @Override
+        public List<Person> getAllAuthors() {
+            return null;
+        }
+
+        @Override
+        public <T> void setData(String key, T value) {
+        }
+
+        @Override
+        public void removeDependency(Dependency dependency) {
+            dependencies.remove(dependency);
+        }
+
+        @Override
+        public void removeVulnerability(Vulnerability vulnerability) {
+        }
+
+        @Override
+        public void addVulnerability(Vulnerability vulnerability) {
+        }
+
+        @Override
+        public String toString() {
+            return getQualifiedName();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package util;
+
+import com.google.gson.JsonParser;
+import repository.repositoryImpl.LicenseNameIndex;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the license lookup with {@link LicenseNameIndex} with the previous implementation, which compiled every license string into a regex
+ * and ran it against every license id, exception id, license name and custom name.
+ * <p>
+ * The tables are read from a licenses.json that older versions wrote to the data folder. Without a file, tables with the size of the SPDX license list are generated.
+ * The lookups are license strings like the ones in poms: ids, names, names in other cases, parts of names and unknown licenses.
+ * Also checks that both implementations find a license for the same strings, that the index finds the shortest key that contains a string,
+ * also for overlapping ids and names like GPL-2.0-only, GPL-2.0-or-later and LGPL-2.0-only. Exits with status 1 if a check fails.
+ * <p>
+ * Usage: LicenseMatchBenchmark [data/licenses.json]
+ */
+public class LicenseMatchBenchmark {
+    private static final int warmupRounds = 5;
+    private static final int rounds = 20;
+    private static final Pattern regexCharacters = Pattern.compile("[\\[\\]{}*+?^$|\\\\]");
+
+    private record Tables(Map<String, String> licenseIds, Map<String, String> exceptionIds, Map<String, String> licenseNames, Map<String, String> specialNames) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        var tables = args.length > 0 ? readTables(args[0]) : generateTables();
+        var inputs = generateInputs(tables);
+        System.out.println(tables.licenseIds().size() + " licenses, " + tables.exceptionIds().size() + " exceptions, " + tables.specialNames().size() + " custom names, " + inputs.size() + " lookups");
+
+        var start = System.nanoTime();
+        var indexes = List.of(new LicenseNameIndex<>(tables.licenseIds()), new LicenseNameIndex<>(tables.exceptionIds()), new LicenseNameIndex<>(tables.licenseNames()), new LicenseNameIndex<>(tables.specialNames()));
+        System.out.println("index built in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+
+        var mismatches = checkEquivalence(tables, indexes, inputs) + checkOverlappingNames();
+        if (mismatches > 0) {
+            System.err.println(mismatches + " lookups differ.");
+            System.exit(1);
+        }
+
+        for (int round = 0; round < warmupRounds; round++) {
+            findLegacy(tables, inputs);
+            find(indexes, inputs);
+        }
+
+        System.out.println("lookup: legacy " + measure(() -> findLegacy(tables, inputs)) + "ms, index " + measure(() -> find(indexes, inputs)) + "ms");
+    }
+
+    private static long measure(Runnable workload) {
+        var start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            workload.run();
+        }
+        return (System.nanoTime() - start) / rounds / 1_000_000;
+    }
+
+    private static int find(List<LicenseNameIndex<String>> indexes, List<String> inputs) {
+        var found = 0;
+        for (var input : inputs) {
+            if (find(indexes, input) != null) found++;
+        }
+        return found;
+    }
+
+    private static String find(List<LicenseNameIndex<String>> indexes, String input) {
+        for (var index : indexes) {
+            var value = index.find(input);
+            if (value != null) return value;
+        }
+        return null;
+    }
+
+    private static int findLegacy(Tables tables, List<String> inputs) {
+        var found = 0;
+        for (var input : inputs) {
+            if (findLegacy(tables, input) != null) found++;
+        }
+        return found;
+    }
+
+    /**
+     * The lookup before the index: the input is compiled into a regex (only parentheses and dots are escaped) and matched against every key.
+     */
+    private static String findLegacy(Tables tables, String input) {
+        input = input.replaceAll("\\(", Matcher.quoteReplacement("\\("));
+        input = input.replaceAll("\\)", Matcher.quoteReplacement("\\)"));
+        input = input.replaceAll("\\.", Matcher.quoteReplacement("\\."));
+        var pattern = Pattern.compile(input, Pattern.CASE_INSENSITIVE);
+
+        for (var table : List.of(tables.licenseIds(), tables.exceptionIds(), tables.licenseNames(), tables.specialNames())) {
+            for (var entry : table.entrySet()) {
+                if (pattern.matcher(entry.getKey()).find()) return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The lookup the index implements, by comparing the string with every key: per table, the shortest key that contains the string ignoring case, then the alphabetically first one.
+     */
+    private static String findShortest(Tables tables, String input) {
+        var query = input.toLowerCase(Locale.ROOT);
+        for (var table : List.of(tables.licenseIds(), tables.exceptionIds(), tables.licenseNames(), tables.specialNames())) {
+            var best = table.keySet().stream()
+                    .filter(key -> key.toLowerCase(Locale.ROOT).contains(query))
+                    .min(Comparator.comparing(String::length).thenComparing(Comparator.naturalOrder()));
+            if (best.isPresent()) return table.get(best.get());
+        }
+        return null;
+    }
+
+    private static int checkEquivalence(Tables tables, List<LicenseNameIndex<String>> indexes, List<String> inputs) {
+        var mismatches = 0;
+        var differentLicense = 0;
+        var regexInputs = 0;
+        for (var input : inputs.stream().distinct().toList()) {
+            var legacy = findLegacy(tables, input);
+            var indexed = find(indexes, input);
+            var shortest = findShortest(tables, input);
+            // the legacy lookup did not escape characters like + or *, so it read them as regex operators. The index reads every string literally.
+            var literal = !regexCharacters.matcher(input).find();
+            if (!literal) regexInputs++;
+            if ((literal && (legacy == null) != (indexed == null)) || !Objects.equals(indexed, shortest)) {
+                if (mismatches++ < 10) System.err.println("Mismatch: " + input + " -> legacy " + legacy + ", index " + indexed + ", shortest key " + shortest);
+            } else if (legacy != null && !legacy.equals(indexed)) {
+                // several keys contain the input, the legacy lookup returned the first one in hash order, the index the shortest one
+                differentLicense++;
+            }
+        }
+        System.out.println(mismatches == 0 ? "Both implementations find a license for the same strings." : mismatches + " strings differ.");
+        System.out.println(differentLicense + " strings are contained in several keys and resolve to a different (shorter) key.");
+        System.out.println(regexInputs + " strings contain regex operators and are only checked against the shortest key.");
+        return mismatches;
+    }
+
+    /**
+     * Ids and names that contain each other: the index has to find the exact key, or the shortest one if there is none.
+     */
+    private static int checkOverlappingNames() {
+        var licenseIds = new HashMap<String, String>();
+        for (var id : List.of("GPL-2.0", "GPL-2.0-only", "GPL-2.0-or-later", "LGPL-2.0-only", "LGPL-2.0-or-later", "AGPL-3.0-only", "GPL-3.0-only", "MIT", "MIT-0", "MIT-CMU")) {
+            licenseIds.put(id, id);
+        }
+        var licenseNames = new HashMap<String, String>();
+        licenseNames.put("GNU General Public License v2.0 only", "GPL-2.0-only");
+        licenseNames.put("GNU General Public License v2.0 or later", "GPL-2.0-or-later");
+        licenseNames.put("GNU Library General Public License v2 only", "LGPL-2.0-only");
+        licenseNames.put("GNU Affero General Public License v3.0 only", "AGPL-3.0-only");
+        var tables = new Tables(licenseIds, Map.of(), licenseNames, specialNames());
+        var indexes = List.of(new LicenseNameIndex<>(tables.licenseIds()), new LicenseNameIndex<>(tables.exceptionIds()), new LicenseNameIndex<>(tables.licenseNames()), new LicenseNameIndex<>(tables.specialNames()));
+
+        var expected = new LinkedHashMap<String, String>();
+        expected.put("gpl-2.0", "GPL-2.0");
+        expected.put("GPL-2.0-only", "GPL-2.0-only");
+        expected.put("gpl-2.0-or", "GPL-2.0-or-later");
+        expected.put("LGPL-2.0", "LGPL-2.0-only");
+        expected.put("GPL-3.0", "GPL-3.0-only");
+        expected.put("-only", "GPL-2.0-only");
+        expected.put("mit", "MIT");
+        expected.put("MIT-", "MIT-0");
+        expected.put("General Public License v2.0", "GPL-2.0-only");
+        expected.put("Affero", "AGPL-3.0-only");
+        expected.put("GPL-4.0", null);
+
+        var mismatches = 0;
+        for (var entry : expected.entrySet()) {
+            var indexed = find(indexes, entry.getKey());
+            var legacy = findLegacy(tables, entry.getKey());
+            if (!Objects.equals(indexed, entry.getValue()) || (legacy == null) != (indexed == null)) {
+                mismatches++;
+                System.err.println("Overlapping name " + entry.getKey() + ": expected " + entry.getValue() + " -> legacy " + legacy + ", index " + indexed);
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * Reads the ids and names from a license file that older versions of the license repository wrote to the data folder.
+     */
+    private static Tables readTables(String file) throws IOException {
+        var licenseIds = new HashMap<String, String>();
+        var exceptionIds = new HashMap<String, String>();
+        var licenseNames = new HashMap<String, String>();
+        try (var reader = new FileReader(file)) {
+            var json = JsonParser.parseReader(reader).getAsJsonObject();
+            for (var license : json.get("licenses").getAsJsonArray()) {
+                var data = license.getAsJsonObject().get("data").getAsJsonObject();
+                licenseIds.put(data.get("licenseId").getAsString(), data.get("licenseId").getAsString());
+                licenseNames.put(data.get("name").getAsString(), data.get("licenseId").getAsString());
+            }
+            for (var exception : json.get("exceptions").getAsJsonArray()) {
+                var data = exception.getAsJsonObject().get("data").getAsJsonObject();
+                exceptionIds.put(data.get("licenseExceptionId").getAsString(), data.get("licenseExceptionId").getAsString());
+            }
+        }
+        return new Tables(licenseIds, exceptionIds, licenseNames, specialNames());
+    }
+
+    /**
+     * Generates about as many licenses and exceptions as the SPDX list has, with ids and names in its style.
+     */
+    private static Tables generateTables() {
+        var random = new Random(42);
+        var licenseIds = new HashMap<String, String>();
+        var licenseNames = new HashMap<String, String>();
+        String[] families = {"Apache", "GPL", "LGPL", "AGPL", "MPL", "EPL", "BSD", "CC-BY", "CDDL", "OFL", "Artistic", "EUPL", "MIT", "Zlib", "Sleepycat", "OLDAP", "CECILL", "NPL"};
+        String[] suffixes = {"", "-only", "-or-later", "-Clause", "-SA", "-NC", "-ND"};
+        for (int i = 0; licenseIds.size() < 650; i++) {
+            var family = families[random.nextInt(families.length)];
+            var version = (1 + random.nextInt(4)) + "." + random.nextInt(3);
+            var id = family + "-" + version + suffixes[random.nextInt(suffixes.length)] + (i % 7 == 0 ? "-" + i : "");
+            licenseIds.put(id, id);
+            licenseNames.put(family + " License " + version + " variant " + i, id);
+        }
+        var exceptionIds = new HashMap<String, String>();
+        for (int i = 0; i < 70; i++) {
+            var id = families[i % families.length] + "-exception-" + i;
+            exceptionIds.put(id, id);
+        }
+        return new Tables(licenseIds, exceptionIds, licenseNames, specialNames());
+    }
+
+    /**
+     * A part of the custom names the license repository creates.
+     */
+    private static Map<String, String> specialNames() {
+        var names = new HashMap<String, String>();
+        names.put("The Apache Software License, Version 2.0", "Apache-2.0");
+        names.put("Apache License, Version 2.0", "Apache-2.0");
+        names.put("Apache 2", "Apache-2.0");
+        names.put("The MIT License", "MIT");
+        names.put("Eclipse Public License - v 1.0", "EPL-1.0");
+        names.put("GNU Lesser General Public License", "LGPL-2.1-only");
+        names.put("New BSD License", "BSD-3-Clause");
+        names.put("CDDL + GPLv2 with classpath exception", "CDDL-1.0 OR GPL-2.0-only WITH Classpath-exception-2.0");
+        return names;
+    }
+
+    /**
+     * License strings like they appear in poms: ids, names, other cases, parts and unknown licenses.
+     */
+    private static List<String> generateInputs(Tables tables) {
+        var random = new Random(7);
+        var ids = new ArrayList<>(tables.licenseIds().keySet());
+        var names = new ArrayList<>(tables.licenseNames().keySet());
+        var specialNames = new ArrayList<>(tables.specialNames().keySet());
+        var inputs = new ArrayList<String>();
+        for (int i = 0; i < 5_000; i++) {
+            switch (i % 6) {
+                case 0 -> inputs.add(ids.get(random.nextInt(ids.size())));
+                case 1 -> inputs.add(ids.get(random.nextInt(ids.size())).toLowerCase());
+                case 2 -> inputs.add(names.get(random.nextInt(names.size())));
+                case 3 -> {
+                    var name = names.get(random.nextInt(names.size()));
+                    var from = random.nextInt(name.length() / 2);
+                    inputs.add(name.substring(from, from + 1 + random.nextInt(name.length() - from - 1)));
+                }
+                case 4 -> inputs.add(specialNames.get(random.nextInt(specialNames.size())).toUpperCase());
+                default -> inputs.add("Proprietary license of company " + random.nextInt(100));
+            }
+        }
+        return inputs;
+    }
+}
@@ -0,0 +1,296 @@
+package util;
+
+import com.google.gson.JsonObject;
+import data.License;
+import data.internalData.SPDXLicense;
+import repository.repositoryImpl.LicenseFingerprintIndex;
+import repository.repositoryImpl.LicenseTextMatcher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the detection of licenses in license texts with {@link LicenseTextMatcher} with the previous implementation,
+ * which compiled ".*" + key + ".*" for every license id, exception id, license name and custom name and matched it against the beginning of the text.
+ * <p>
+ * The tables are generated with about as many entries as the SPDX license list has, the texts are beginnings of license files with a copyright line and a license name or id,
+ * and texts without a license.
+ * Checks that both implementations find a license in the same texts, and that the matcher finds the identifier of the first kind (id, exception, name, custom name)
+ * and within it the longest one, compared against a search for every identifier. Also checks ids and names that contain each other, like GPL-2.0, GPL-2.0-only and LGPL-2.0-only.
+ * <p>
+ * Also checks that {@link LicenseFingerprintIndex} recognizes reformatted license texts, tells similar texts (BSD-2-Clause and BSD-3-Clause) apart
+ * and reports licenses with the same text (GPL-2.0-only and GPL-2.0-or-later) as ambiguous instead of picking one of them.
+ * Exits with status 1 if a check fails.
+ * <p>
+ * Usage: LicenseTextBenchmark
+ */
+public class LicenseTextBenchmark {
+    private static final int warmupRounds = 1;
+    private static final int rounds = 1;
+    private static final String mitText = "Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the \"Software\"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:\n\nThe above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.\n\nTHE SOFTWARE IS PROVIDED \"AS IS\", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.";
+    private static final String bsd2Text = "Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:\n\n1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.\n\n2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.\n\nTHIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS \"AS IS\" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.";
+    private static final String bsd3Text = bsd2Text.replace("\n\nTHIS SOFTWARE", "\n\n3. Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.\n\nTHIS SOFTWARE");
+
+    /**
+     * The identifiers in the order license texts were searched in before: ids, exceptions, names, custom names.
+     */
+    private record Tables(List<Map<String, String>> kinds) {
+    }
+
+    public static void main(String[] args) {
+        var tables = generateTables();
+        var texts = generateTexts(tables);
+        System.out.println(tables.kinds().stream().mapToInt(Map::size).sum() + " identifiers, " + texts.size() + " texts");
+
+        var start = System.nanoTime();
+        var matcher = buildMatcher(tables);
+        System.out.println("matcher built in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+
+        var mismatches = checkEquivalence(tables, matcher, texts) + checkOverlappingIdentifiers() + checkFingerprints();
+        if (mismatches > 0) {
+            System.err.println(mismatches + " texts differ.");
+            System.exit(1);
+        }
+
+        for (int round = 0; round < warmupRounds; round++) {
+            findLegacy(tables, texts);
+            find(matcher, texts);
+        }
+
+        System.out.println("detection: legacy " + measure(() -> findLegacy(tables, texts)) + "ms, matcher " + measure(() -> find(matcher, texts)) + "ms");
+    }
+
+    private static long measure(Runnable workload) {
+        var start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            workload.run();
+        }
+        return (System.nanoTime() - start) / rounds / 1_000_000;
+    }
+
+    private static LicenseTextMatcher<String> buildMatcher(Tables tables) {
+        var matcher = new LicenseTextMatcher<String>();
+        for (int priority = 0; priority < tables.kinds().size(); priority++) {
+            var kind = priority;
+            tables.kinds().get(priority).forEach((key, value) -> matcher.add(key, kind, value));
+        }
+        matcher.build();
+        return matcher;
+    }
+
+    private static int find(LicenseTextMatcher<String> matcher, List<String> texts) {
+        var found = 0;
+        for (var text : texts) {
+            if (matcher.find(text) != null) found++;
+        }
+        return found;
+    }
+
+    private static int findLegacy(Tables tables, List<String> texts) {
+        var found = 0;
+        for (var text : texts) {
+            if (findLegacy(tables, text) != null) found++;
+        }
+        return found;
+    }
+
+    /**
+     * The detection before the matcher: every identifier is compiled into a regex and matched against the text, the first kind and the first identifier in hash order wins.
+     */
+    private static String findLegacy(Tables tables, String text) {
+        for (var kind : tables.kinds()) {
+            for (var entry : kind.entrySet()) {
+                if (Pattern.compile(".*" + entry.getKey() + ".*", Pattern.DOTALL | Pattern.CASE_INSENSITIVE).matcher(text).find()) return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The detection the matcher implements, by searching every identifier: the first kind, then the longest identifier, then the one that ends first.
+     */
+    private static String findLongest(Tables tables, String text) {
+        var lowerText = toLowerCase(text);
+        for (var kind : tables.kinds()) {
+            String best = null;
+            var bestEnd = 0;
+            for (var key : kind.keySet()) {
+                var position = lowerText.indexOf(toLowerCase(key));
+                if (key.isEmpty() || position < 0) continue;
+                var end = position + key.length();
+                if (best == null || key.length() > best.length() || (key.length() == best.length() && end < bestEnd)) {
+                    best = key;
+                    bestEnd = end;
+                }
+            }
+            if (best != null) return kind.get(best);
+        }
+        return null;
+    }
+
+    // the matcher lowers every character on its own
+    private static String toLowerCase(String text) {
+        var result = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) result.append(Character.toLowerCase(text.charAt(i)));
+        return result.toString();
+    }
+
+    private static int checkEquivalence(Tables tables, LicenseTextMatcher<String> matcher, List<String> texts) {
+        var mismatches = 0;
+        var differentLicense = 0;
+        for (var text : texts.stream().distinct().toList()) {
+            var legacy = findLegacy(tables, text);
+            var matched = matcher.find(text);
+            var longest = findLongest(tables, text);
+            if ((legacy == null) != (matched == null) || !Objects.equals(matched, longest)) {
+                if (mismatches++ < 10) System.err.println("Mismatch: " + text.replace('\n', ' ') + " -> legacy " + legacy + ", matcher " + matched + ", longest " + longest);
+            } else if (legacy != null && !legacy.equals(matched)) {
+                // several identifiers of the same kind are in the text, the legacy detection returned the first one in hash order, the matcher the longest one
+                differentLicense++;
+            }
+        }
+        System.out.println(mismatches == 0 ? "Both implementations find a license in the same texts." : mismatches + " texts differ.");
+        System.out.println(differentLicense + " texts contain several identifiers of the same kind and resolve to a different (longer) one.");
+        return mismatches;
+    }
+
+    /**
+     * Ids and names that contain each other: the matcher has to find the id before a name and the longest id in the text.
+     */
+    private static int checkOverlappingIdentifiers() {
+        var ids = new HashMap<String, String>();
+        for (var id : List.of("GPL-2.0", "GPL-2.0-only", "GPL-2.0-or-later", "LGPL-2.0-only", "LGPL-2.1-or-later", "MIT", "MIT-0")) {
+            ids.put(id, id);
+        }
+        var exceptions = Map.of("Classpath-exception-2.0", "Classpath-exception-2.0");
+        var names = Map.of("GNU General Public License v2.0 or later", "GPL-2.0-or-later", "MIT License", "MIT");
+        var customNames = Map.of("The MIT License", "MIT");
+        var tables = new Tables(List.of(ids, exceptions, names, customNames));
+        var matcher = buildMatcher(tables);
+
+        var expected = new LinkedHashMap<String, String>();
+        expected.put("SPDX-License-Identifier: GPL-2.0-or-later\nCopyright (c) 2020", "GPL-2.0-or-later");
+        expected.put("SPDX-License-Identifier: gpl-2.0-only", "GPL-2.0-only");
+        expected.put("Licensed under the GPL-2.0 license", "GPL-2.0");
+        expected.put("SPDX-License-Identifier: LGPL-2.1-or-later", "LGPL-2.1-or-later");
+        expected.put("SPDX-License-Identifier: LGPL-2.0-only", "LGPL-2.0-only");
+        expected.put("GPL-2.0-only WITH Classpath-exception-2.0", "GPL-2.0-only");
+        expected.put("Classpath-exception-2.0 applies", "Classpath-exception-2.0");
+        expected.put("GNU General Public License v2.0 or later", "GPL-2.0-or-later");
+        expected.put("The MIT License\n\nCopyright (c) 2019", "MIT");
+        expected.put("MIT-0 License", "MIT-0");
+        expected.put("All rights reserved.", null);
+
+        var mismatches = 0;
+        for (var entry : expected.entrySet()) {
+            var matched = matcher.find(entry.getKey());
+            var legacy = findLegacy(tables, entry.getKey());
+            if (!Objects.equals(matched, entry.getValue()) || (legacy == null) != (matched == null)) {
+                mismatches++;
+                System.err.println("Overlapping identifier " + entry.getKey().replace('\n', ' ') + ": expected " + entry.getValue() + " -> legacy " + legacy + ", matcher " + matched);
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * License files with the texts of the licenses: the GPL and LGPL -only and -or-later licenses have the same text, so their files are ambiguous.
+     * The long GPL texts are stood in for by generated words, the LGPL text shares most of them.
+     */
+    private static int checkFingerprints() {
+        var random = new Random(3);
+        var gplText = new StringBuilder();
+        for (int i = 0; i < 3000; i++) gplText.append("word").append(random.nextInt(2000)).append(i % 12 == 11 ? ".\n" : " ");
+        var lgplText = gplText.substring(0, gplText.length() * 2 / 3) + " Lesser " + gplText.substring(gplText.length() * 2 / 3).replace("word1", "lesser");
+
+        var licenses = new HashMap<String, License>();
+        for (var entry : Map.of("MIT", mitText, "BSD-2-Clause", bsd2Text, "BSD-3-Clause", bsd3Text,
+                "GPL-2.0-only", gplText.toString(), "GPL-2.0-or-later", gplText.toString(), "LGPL-2.1-only", lgplText, "LGPL-2.1-or-later", lgplText).entrySet()) {
+            var data = new JsonObject();
+            data.addProperty("licenseId", entry.getKey());
+            var details = new JsonObject();
+            details.addProperty("licenseText", entry.getValue());
+            licenses.put(entry.getKey(), new SPDXLicense(data, details));
+        }
+        var index = LicenseFingerprintIndex.load(null, licenses, "benchmark");
+
+        // license file -> the licenses that match it, none if it is not a license text
+        var expected = new LinkedHashMap<String, List<String>>();
+        expected.put("MIT License\n\nCopyright (c) 2019 Some Person\n\n" + mitText.replace(" ", "  ").replace("\n\n", "\n").replace("\"", "'"), List.of("MIT"));
+        expected.put("Copyright 2010 The Project Authors. All rights reserved.\n" + bsd3Text.replace("copyright holder nor", "Google Inc. nor"), List.of("BSD-3-Clause"));
+        expected.put(bsd2Text.toUpperCase(), List.of("BSD-2-Clause"));
+        expected.put("Copyright (C) 1989, 1991 Free Software Foundation, Inc.\n" + gplText, List.of("GPL-2.0-only", "GPL-2.0-or-later"));
+        expected.put(lgplText.toLowerCase(), List.of("LGPL-2.1-only", "LGPL-2.1-or-later"));
+        expected.put("Some proprietary license text that nobody knows about " + mitText.substring(0, 150), List.of());
+
+        var mismatches = 0;
+        for (var entry : expected.entrySet()) {
+            var match = index.find(entry.getKey());
+            var ties = match == null ? List.<String>of() : match.ties();
+            var ambiguous = match != null && match.isAmbiguous();
+            if (!ties.equals(entry.getValue()) || ambiguous != (entry.getValue().size() > 1)) {
+                mismatches++;
+                System.err.println("License file " + entry.getKey().substring(0, 40).replace('\n', ' ') + "...: expected " + entry.getValue() + " -> " + match);
+            }
+        }
+        System.out.println(mismatches == 0 ? "The fingerprints recognize every license file and report licenses with the same text as ambiguous." : mismatches + " license files are not recognized.");
+        return mismatches;
+    }
+
+    /**
+     * Generates about as many ids, exceptions and names as the SPDX list has, in its style.
+     */
+    private static Tables generateTables() {
+        var random = new Random(42);
+        var ids = new HashMap<String, String>();
+        var names = new HashMap<String, String>();
+        String[] families = {"Apache", "GPL", "LGPL", "AGPL", "MPL", "EPL", "BSD", "CC-BY", "CDDL", "OFL", "Artistic", "EUPL", "MIT", "Zlib", "Sleepycat", "OLDAP", "CECILL", "NPL"};
+        String[] suffixes = {"", "-only", "-or-later", "-Clause", "-SA", "-NC", "-ND"};
+        for (int i = 0; ids.size() < 650; i++) {
+            var family = families[random.nextInt(families.length)];
+            var version = (1 + random.nextInt(4)) + "." + random.nextInt(3);
+            var id = family + "-" + version + suffixes[random.nextInt(suffixes.length)] + (i % 7 == 0 ? "-" + i : "");
+            ids.put(id, id);
+            names.put(family + " License " + version + " variant " + i, id);
+        }
+        var exceptions = new HashMap<String, String>();
+        for (int i = 0; i < 70; i++) {
+            var id = families[i % families.length] + "-exception-" + i;
+            exceptions.put(id, id);
+        }
+        var customNames = new HashMap<String, String>();
+        customNames.put("The Apache Software License, Version 2.0", "Apache-2.0");
+        customNames.put("Eclipse Public License - v 1.0", "EPL-1.0");
+        customNames.put("New BSD License", "BSD-3-Clause");
+        customNames.put("The MIT License", "MIT");
+        return new Tables(List.of(ids, exceptions, names, customNames));
+    }
+
+    /**
+     * The first 200 characters of license files (few, the legacy detection takes about 0.1s per text): a copyright line and an id, a name or a custom name in another case, or no license at all.
+     */
+    private static List<String> generateTexts(Tables tables) {
+        var random = new Random(7);
+        var texts = new ArrayList<String>();
+        for (int i = 0; i < 100; i++) {
+            var text = new StringBuilder("Copyright (c) " + (1990 + random.nextInt(35)) + " The Authors of project " + i + "\n\n");
+            var kind = tables.kinds().get(random.nextInt(tables.kinds().size()));
+            var keys = new ArrayList<>(kind.keySet());
+            switch (i % 4) {
+                case 0 -> text.append("SPDX-License-Identifier: ").append(keys.get(random.nextInt(keys.size())));
+                case 1 -> text.append("Licensed under the ").append(keys.get(random.nextInt(keys.size())).toUpperCase()).append(", see below.");
+                case 2 -> text.append(keys.get(random.nextInt(keys.size())).toLowerCase()).append("\n\nPermission is hereby granted");
+                default -> text.append("All rights reserved. Proprietary and confidential, do not distribute.");
+            }
+            while (text.length() < 200) text.append(" Lorem ipsum dolor sit amet.");
+            texts.add(text.substring(0, 200));
+        }
+        return texts;
+    }
+}
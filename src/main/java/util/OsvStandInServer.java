@@ -0,0 +1,167 @@
+package util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * A local stand-in for the OSV api (https://api.osv.dev), to test the vulnerability lookup without the network.
+ * <p>
+ * Serves the OSV entries (*.json) of the given directory, e.g. an extracted Maven/all.zip of the OSV database.
+ * Supports POST /v1/query, POST /v1/querybatch and GET /v1/vulns/{id}. A component is affected if its version is listed in the versions of an affected package.
+ * Batch results are split into pages of the given size, like the real api does for large results.
+ * <p>
+ * Usage: OsvStandInServer [port] [directory] [page size]
+ * <p>
+ * Then run the crawler with --osv-url http://localhost:[port]
+ */
+public class OsvStandInServer {
+    private final Map<String, JsonObject> advisories = new HashMap<>();
+    // package name:version -> ids
+    private final Map<String, List<String>> affected = new HashMap<>();
+    private final int pageSize;
+    private final AtomicLong requests = new AtomicLong();
+
+    public static void main(String[] args) throws IOException {
+        var port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        var directory = args.length > 1 ? Path.of(args[1]) : null;
+        var pageSize = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        var server = new OsvStandInServer(pageSize);
+        if (directory != null) server.load(directory);
+        server.start(port);
+    }
+
+    public OsvStandInServer(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Loads all OSV entries of the directory and its subdirectories.
+     */
+    public void load(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (var file : files.filter(it -> it.toString().endsWith(".json")).toList()) {
+                try (var reader = Files.newBufferedReader(file)) {
+                    add(JsonParser.parseReader(reader).getAsJsonObject());
+                }
+            }
+        }
+        System.out.println("Loaded " + advisories.size() + " vulnerabilities for " + affected.size() + " package versions.");
+    }
+
+    public void add(JsonObject advisory) {
+        var id = advisory.get("id").getAsString();
+        advisories.put(id, advisory);
+        if (!advisory.has("affected")) return;
+        for (var affectedElement : advisory.get("affected").getAsJsonArray()) {
+            var affectedPackage = affectedElement.getAsJsonObject();
+            if (!affectedPackage.has("package") || !affectedPackage.has("versions")) continue;
+            var name = affectedPackage.get("package").getAsJsonObject().get("name").getAsString();
+            for (var version : affectedPackage.get("versions").getAsJsonArray()) {
+                var ids = affected.computeIfAbsent(name + ":" + version.getAsString(), k -> new ArrayList<>());
+                if (!ids.contains(id)) ids.add(id);
+            }
+        }
+    }
+
+    public HttpServer start(int port) throws IOException {
+        var server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(Executors.newFixedThreadPool(16));
+        server.createContext("/v1/query", exchange -> handle(exchange, () -> query(readBody(exchange))));
+        server.createContext("/v1/querybatch", exchange -> handle(exchange, () -> queryBatch(readBody(exchange))));
+        server.createContext("/v1/vulns/", exchange -> handle(exchange, () -> {
+            var id = URLDecoder.decode(exchange.getRequestURI().getPath().substring("/v1/vulns/".length()), StandardCharsets.UTF_8);
+            return advisories.get(id);
+        }));
+        server.start();
+        System.out.println("OSV stand-in server listening on http://localhost:" + server.getAddress().getPort());
+        return server;
+    }
+
+    /**
+     * @return the number of requests that were answered so far
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    private interface ResponseSupplier {
+        JsonObject get() throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, ResponseSupplier supplier) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            var response = supplier.get();
+            var status = response == null ? 404 : 200;
+            var body = (response == null ? "{\"code\":5,\"message\":\"Bug not found.\"}" : response.toString()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+            System.out.println(exchange.getRequestMethod() + " " + exchange.getRequestURI() + " " + status);
+        } catch (RuntimeException e) {
+            System.err.println("Could not answer " + exchange.getRequestURI() + ": " + e);
+            exchange.sendResponseHeaders(400, -1);
+        }
+    }
+
+    private static JsonObject readBody(HttpExchange exchange) {
+        return JsonParser.parseReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)).getAsJsonObject();
+    }
+
+    private List<String> getIds(JsonObject query) {
+        var name = query.get("package").getAsJsonObject().get("name").getAsString();
+        return affected.getOrDefault(name + ":" + query.get("version").getAsString(), List.of());
+    }
+
+    private JsonObject query(JsonObject query) {
+        var vulns = new JsonArray();
+        getIds(query).forEach(id -> vulns.add(advisories.get(id)));
+        var result = new JsonObject();
+        if (!vulns.isEmpty()) result.add("vulns", vulns);
+        return result;
+    }
+
+    private JsonObject queryBatch(JsonObject request) {
+        var results = new JsonArray();
+        for (var queryElement : request.get("queries").getAsJsonArray()) {
+            var query = queryElement.getAsJsonObject();
+            var ids = getIds(query);
+            var offset = query.has("page_token") ? Integer.parseInt(query.get("page_token").getAsString()) : 0;
+
+            var vulns = new JsonArray();
+            for (var id : ids.subList(Math.min(offset, ids.size()), Math.min(offset + pageSize, ids.size()))) {
+                var vuln = new JsonObject();
+                vuln.addProperty("id", id);
+                vuln.add("modified", advisories.get(id).get("modified"));
+                vulns.add(vuln);
+            }
+
+            var result = new JsonObject();
+            if (!vulns.isEmpty()) result.add("vulns", vulns);
+            if (offset + pageSize < ids.size()) result.addProperty("next_page_token", String.valueOf(offset + pageSize));
+            results.add(result);
+        }
+        var response = new JsonObject();
+        response.add("results", results);
+        return response;
+    }
+}
@@ -0,0 +1,189 @@
+package util;
+
+import data.Version;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Compares the pre-parsed {@link Version} comparison with the previous implementation, which split both versions on every comparison.
+ * <p>
+ * Runs two workloads: sorting all versions of an artifact into a tree set, like the repositories did, and filtering them with a version range, like the maven version range resolver does.
+ * The versions are read from the given maven-metadata.xml files (e.g. from the maven cache in the data folder). Without files, version lists that look like the metadata of popular artifacts are generated.
+ * Also checks that both implementations compare all versions the same way.
+ * <p>
+ * Usage: VersionComparisonBenchmark [maven-metadata.xml ...]
+ */
+public class VersionComparisonBenchmark {
+    private static final int warmupRounds = 5;
+    private static final int rounds = 20;
+
+    public static void main(String[] args) throws IOException, XMLStreamException {
+        var artifacts = new ArrayList<List<String>>();
+        for (var file : args) {
+            artifacts.add(readVersions(file));
+        }
+        if (artifacts.isEmpty()) {
+            artifacts.addAll(generateArtifacts());
+        }
+
+        var versionCount = artifacts.stream().mapToInt(List::size).sum();
+        System.out.println(artifacts.size() + " artifacts, " + versionCount + " versions");
+
+        checkEquivalence(artifacts);
+
+        for (int round = 0; round < warmupRounds; round++) {
+            sortLegacy(artifacts);
+            sort(artifacts);
+            filterLegacy(artifacts);
+            filter(artifacts);
+        }
+
+        System.out.println("sort:         legacy " + measure(() -> sortLegacy(artifacts)) + "ms, pre-parsed " + measure(() -> sort(artifacts)) + "ms");
+        System.out.println("range filter: legacy " + measure(() -> filterLegacy(artifacts)) + "ms, pre-parsed " + measure(() -> filter(artifacts)) + "ms");
+    }
+
+    private static long measure(Runnable workload) {
+        var start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            workload.run();
+        }
+        return (System.nanoTime() - start) / rounds / 1_000_000;
+    }
+
+    private static void sort(List<List<String>> artifacts) {
+        for (var artifact : artifacts) {
+            var versions = new TreeSet<Version>();
+            for (var version : artifact) {
+                versions.add(Version.of(version));
+            }
+        }
+    }
+
+    private static void sortLegacy(List<List<String>> artifacts) {
+        for (var artifact : artifacts) {
+            var versions = new TreeSet<String>(VersionComparisonBenchmark::compareLegacy);
+            versions.addAll(artifact);
+        }
+    }
+
+    private static int filter(List<List<String>> artifacts) {
+        var count = 0;
+        for (var artifact : artifacts) {
+            var versions = new ArrayList<Version>(artifact.size());
+            for (var version : artifact) {
+                versions.add(Version.of(version));
+            }
+            var lower = versions.get(versions.size() / 4);
+            var upper = versions.get(versions.size() * 3 / 4);
+            for (var version : versions) {
+                if (version.compareTo(lower) >= 0 && version.compareTo(upper) < 0) count++;
+            }
+        }
+        return count;
+    }
+
+    private static int filterLegacy(List<List<String>> artifacts) {
+        var count = 0;
+        for (var artifact : artifacts) {
+            var lower = artifact.get(artifact.size() / 4);
+            var upper = artifact.get(artifact.size() * 3 / 4);
+            for (var version : artifact) {
+                if (compareLegacy(version, lower) >= 0 && compareLegacy(version, upper) < 0) count++;
+            }
+        }
+        return count;
+    }
+
+    private static void checkEquivalence(List<List<String>> artifacts) {
+        var mismatches = 0;
+        for (var artifact : artifacts) {
+            // the neighbours in the shuffled list are a random sample of the other versions
+            for (int i = 0; i < artifact.size(); i++) {
+                var v1 = artifact.get(i);
+                for (int j = i; j < Math.min(artifact.size(), i + 20); j++) {
+                    var v2 = artifact.get(j);
+                    if (Integer.signum(compareLegacy(v1, v2)) != Integer.signum(Version.of(v1).compareTo(Version.of(v2)))) {
+                        if (mismatches++ < 10) System.err.println("Mismatch: " + v1 + " <> " + v2);
+                    }
+                }
+            }
+        }
+        System.out.println(mismatches == 0 ? "Both implementations compare all versions the same way." : mismatches + " comparisons differ.");
+    }
+
+    /**
+     * The comparison before versions were pre-parsed.
+     */
+    private static int compareLegacy(String v1, String v2) {
+        String[] parts1 = v1.split("[-.]");
+        String[] parts2 = v2.split("[-.]");
+
+        int length = Math.min(parts1.length, parts2.length);
+
+        for (int i = 0; i < length; i++) {
+            if (parts1[i].matches("\\d+") && parts2[i].matches("\\d+")) {
+                int part1 = Integer.parseInt(parts1[i]);
+                int part2 = Integer.parseInt(parts2[i]);
+
+                if (part1 != part2) {
+                    return Integer.compare(part1, part2);
+                }
+            } else {
+                return 0;
+            }
+        }
+
+        return Integer.compare(parts1.length, parts2.length);
+    }
+
+    private static List<String> readVersions(String file) throws IOException, XMLStreamException {
+        var versions = new ArrayList<String>();
+        try (var inputStream = new FileInputStream(file)) {
+            var reader = XMLInputFactory.newInstance().createXMLEventReader(inputStream);
+            while (reader.hasNext()) {
+                var event = reader.nextEvent();
+                if (event.isStartElement() && event.asStartElement().getName().getLocalPart().equals("version")) {
+                    event = reader.nextEvent();
+                    if (event.isCharacters()) versions.add(event.asCharacters().getData().trim());
+                }
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Generates version lists in the styles of popular artifacts: plain semantic versions, flavor suffixes (guava), release candidates and milestones (spring, jackson) and qualifiers (e.g. .Final).
+     */
+    private static List<List<String>> generateArtifacts() {
+        var random = new Random(42);
+        var artifacts = new ArrayList<List<String>>();
+        String[][] suffixes = {{""}, {"-jre", "-android"}, {"", "-rc1", "-rc2", "-M1"}, {".Final", ".CR1", ".Beta1"}};
+        for (int artifact = 0; artifact < 200; artifact++) {
+            var versions = new ArrayList<String>();
+            var suffixSet = suffixes[artifact % suffixes.length];
+            var majors = 1 + random.nextInt(8);
+            for (int major = 0; major < majors; major++) {
+                var minors = 1 + random.nextInt(10);
+                for (int minor = 0; minor < minors; minor++) {
+                    var patches = random.nextInt(5);
+                    for (int patch = 0; patch <= patches; patch++) {
+                        for (var suffix : suffixSet) {
+                            versions.add(major + "." + minor + (patch > 0 || random.nextBoolean() ? "." + patch : "") + suffix);
+                        }
+                    }
+                }
+            }
+            Collections.shuffle(versions, random);
+            artifacts.add(versions);
+        }
+        return artifacts;
+    }
+}